@@ -0,0 +1,64 @@
+package com.tricketteh.SocksREST.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tricketteh.SocksREST.entity.Sock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of socks responses: the whole List as GET /api/socks writes it, and row by row as
+ * GET /api/socks/stream writes it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SocksJsonBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectWriter sockWriter;
+    private List<Sock> socks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sockWriter = objectMapper.writerFor(Sock.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        socks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            socks.add(new Sock((long) i, "color-" + i % 50, (i % 101) * 1.0, 1 + i % 500));
+        }
+    }
+
+    @Benchmark
+    public void serializeList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), socks);
+    }
+
+    @Benchmark
+    public void serializeStreamed() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (Sock sock : socks) {
+                sockWriter.writeValue(generator, sock);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
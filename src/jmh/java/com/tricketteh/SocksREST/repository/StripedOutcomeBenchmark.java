@@ -0,0 +1,87 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent outcomes of one hot sock against embedded PostgreSQL. With one stripe every transaction waits for the
+ * row lock of the previous one; more stripes let the transactions commit in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class StripedOutcomeBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int stripes;
+
+    private EmbeddedPostgres postgres;
+    private HikariDataSource dataSource;
+    private SockJdbcRepositoryImpl repository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        config.setUsername("postgres");
+        config.setMaximumPoolSize(16);
+        dataSource = new HikariDataSource(config);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        SocksProperties.Stripes.StripedSock hotSock = new SocksProperties.Stripes.StripedSock();
+        hotSock.setColor("black");
+        hotSock.setCottonPart(80.0);
+        SocksProperties properties = new SocksProperties();
+        properties.getStripes().setEnabled(true);
+        properties.getStripes().setCount(stripes);
+        properties.getStripes().setSocks(List.of(hotSock));
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        ColorDictionary colorDictionary = new ColorDictionary(jdbcTemplate, properties);
+        SockStripes sockStripes = new SockStripes(jdbcTemplate, colorDictionary, transactionManager, properties);
+        sockStripes.init();
+        jdbcTemplate.update("UPDATE public.sock_stripes SET quantity = :quantity", Map.of("quantity", STOCK / stripes));
+
+        repository = new SockJdbcRepositoryImpl(jdbcTemplate, sockStripes, colorDictionary);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public Integer outcome() {
+        return transactionTemplate.execute(status -> repository.decrementQuantity("black", 80.0, 1));
+    }
+}
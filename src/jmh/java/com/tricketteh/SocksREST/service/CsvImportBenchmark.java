@@ -0,0 +1,92 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Parsing, validation and chunking of {@link DefaultSockService#loadCsv} with the database replaced by a stub,
+ * so the numbers show the CPU and allocation cost of the import pipeline alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvImportBenchmark {
+
+    private static final String[] COLORS = {"red", "blue", "black", "white", "green", "yellow", "grey", "navy"};
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private byte[] csv;
+    private SockService sockService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(rows * 16);
+        output.writeBytes("color,cottonPart,quantity\n".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < rows; i++) {
+            String line = COLORS[i % COLORS.length] + "," + (i % 101) + "," + (1 + i % 500) + "\n";
+            output.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+        }
+        csv = output.toByteArray();
+
+        SocksProperties properties = new SocksProperties();
+        properties.getBatch().setParallelParsing(false);
+        sockService = new DefaultSockService(
+                mock(SockRepository.class, withSettings().stubOnly()),
+                properties,
+                new InventoryChanges(List.of(), new InventorySnapshots()),
+                mock(InventoryIndex.class, withSettings().stubOnly()),
+                new SocksMetrics(new SimpleMeterRegistry()),
+                mock(WriteBehindBuffer.class, withSettings().stubOnly()),
+                mock(StockLedger.class, withSettings().stubOnly()),
+                new ParallelCsvParser(properties),
+                new TransactionTemplate(mock(PlatformTransactionManager.class))
+        );
+    }
+
+    @Benchmark
+    public long loadCsv(RowCounter counter) {
+        ImportProgress progress = new ImportProgress();
+        sockService.loadCsv(new ByteArrayInputStream(csv), progress);
+        counter.rows += progress.getRowsParsed();
+        return progress.getRowsPersisted();
+    }
+
+    /**
+     * Reports parsed rows per second next to files per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter {
+
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link DefaultSockService#loadCsvFile(Path, ImportProgress)} on a spooled file with the database replaced by a
+ * stub. With one thread the file is parsed sequentially; more threads parse its byte ranges in parallel, so the
+ * scores show how parsing and validation scale with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelCsvImportBenchmark {
+
+    private static final String[] COLORS = {"red", "blue", "black", "white", "green", "yellow", "grey", "navy"};
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path file;
+    private ParallelCsvParser parser;
+    private SockService sockService;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("socks-benchmark-", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("color,cottonPart,quantity\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(COLORS[i % COLORS.length] + "," + (i % 101) + "," + (1 + i % 500) + "\n");
+            }
+        }
+
+        SocksProperties properties = new SocksProperties();
+        properties.getBatch().setParallelParsing(threads > 1);
+        properties.getBatch().setParseThreads(threads);
+        parser = new ParallelCsvParser(properties);
+        sockService = new DefaultSockService(
+                mock(SockRepository.class, withSettings().stubOnly()),
+                properties,
+                new InventoryChanges(List.of(), new InventorySnapshots()),
+                mock(InventoryIndex.class, withSettings().stubOnly()),
+                new SocksMetrics(new SimpleMeterRegistry()),
+                mock(WriteBehindBuffer.class, withSettings().stubOnly()),
+                mock(StockLedger.class, withSettings().stubOnly()),
+                parser,
+                new TransactionTemplate(mock(PlatformTransactionManager.class))
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parser.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long loadCsvFile() {
+        ImportProgress progress = new ImportProgress();
+        sockService.loadCsvFile(file, progress);
+        return progress.getRowsPersisted();
+    }
+}
@@ -0,0 +1,100 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.SockQuantity;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Socks count over growing tables: the former findAll() plus stream filtering against the in-memory inventory index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SocksCountBenchmark {
+
+    private static final String[] COLORS = {"red", "blue", "black", "white", "green", "yellow", "grey", "navy", "pink", "brown"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int tableSize;
+
+    private List<Sock> table;
+    private InventoryIndex inventoryIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = new ArrayList<>(tableSize);
+        List<SockQuantity> rows = new ArrayList<>(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            String color = COLORS[i % COLORS.length];
+            double cottonPart = (i / COLORS.length) * 100.0 / Math.max(1, tableSize / COLORS.length);
+            int quantity = 1 + i % 500;
+            table.add(new Sock((long) i, color, cottonPart, quantity));
+            rows.add(new Row(color, cottonPart, (long) quantity));
+        }
+
+        SockRepository sockRepository = mock(SockRepository.class);
+        when(sockRepository.sumQuantityBySock()).thenReturn(rows);
+        SocksProperties properties = new SocksProperties();
+        properties.getInventoryIndex().setEnabled(true);
+        inventoryIndex = new InventoryIndex(sockRepository, properties, new InventorySnapshots(),
+                mock(PlatformTransactionManager.class));
+        inventoryIndex.rebuild();
+    }
+
+    @Benchmark
+    public int streamFilter() {
+        String color = "red";
+        Double cottonPart = 40.0;
+        return table.stream()
+                .filter(sock -> sock.getColor().equalsIgnoreCase(color))
+                .filter(sock -> sock.getCottonPart() > cottonPart)
+                .mapToInt(Sock::getQuantity)
+                .sum();
+    }
+
+    @Benchmark
+    public long inventoryIndex() {
+        return inventoryIndex.sum("red", "moreThan", 40.0, null, null);
+    }
+
+    @Benchmark
+    public long inventoryIndexRange() {
+        return inventoryIndex.sum(null, null, null, 30.0, 70.0);
+    }
+
+    private record Row(String color, Double cottonPart, Long quantity) implements SockQuantity {
+
+        @Override
+        public String getColor() {
+            return color;
+        }
+
+        @Override
+        public Double getCottonPart() {
+            return cottonPart;
+        }
+
+        @Override
+        public Long getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tricketteh.SocksREST.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes per operation. Latencies are measured from the time a request was scheduled, not from
+ * when it was sent, so a stalled server shows up in the percentiles instead of lowering the offered load.
+ */
+final class LatencyRecorder {
+
+    private static final long MAX_LATENCY_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, int status) {
+        Stats operationStats = stats.get(operation);
+        operationStats.latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        if (status >= 200 && status < 300) {
+            operationStats.succeeded.increment();
+        } else if (status >= 400 && status < 500) {
+            operationStats.rejected.increment();
+        } else {
+            operationStats.failed.increment();
+        }
+    }
+
+    void reset() {
+        stats.values().forEach(Stats::reset);
+    }
+
+    /**
+     * Writes {@code summary.txt}, {@code summary.json} and one HdrHistogram percentile distribution per operation.
+     */
+    void write(Path directory, Duration elapsed, String description) throws IOException {
+        Files.createDirectories(directory);
+        Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        stats.values().forEach(operationStats -> total.add(operationStats.latencies));
+
+        StringBuilder text = new StringBuilder(description).append("\n\n");
+        text.append(String.format(Locale.ROOT, "%-8s %10s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "op", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "ok", "4xx", "5xx"));
+        StringBuilder json = new StringBuilder("{\n  \"description\": \"").append(description.replace("\"", "'"))
+                .append("\",\n  \"elapsedSeconds\": ").append(seconds(elapsed)).append(",\n  \"operations\": {");
+
+        String separator = "\n";
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats operationStats = entry.getValue();
+            Histogram latencies = operationStats.latencies;
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            String name = entry.getKey().metricName();
+            text.append(row(name, latencies, elapsed, operationStats));
+            json.append(separator).append("    \"").append(name).append("\": ").append(json(latencies, elapsed, operationStats));
+            separator = ",\n";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+                latencies.outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+        text.append(row("total", total, elapsed, null));
+        json.append("\n  },\n  \"total\": ").append(json(total, elapsed, null)).append("\n}\n");
+
+        Files.writeString(directory.resolve("summary.txt"), text);
+        Files.writeString(directory.resolve("summary.json"), json);
+        System.out.print(text);
+    }
+
+    private static String row(String name, Histogram latencies, Duration elapsed, Stats stats) {
+        return String.format(Locale.ROOT, "%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10s %8s %8s%n",
+                name,
+                latencies.getTotalCount(),
+                latencies.getTotalCount() / seconds(elapsed),
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                stats == null ? "" : stats.succeeded.sum(),
+                stats == null ? "" : stats.rejected.sum(),
+                stats == null ? "" : stats.failed.sum());
+    }
+
+    private static String json(Histogram latencies, Duration elapsed, Stats stats) {
+        String json = String.format(Locale.ROOT,
+                "{\"requests\": %d, \"throughput\": %.1f, \"p50Ms\": %.3f, \"p99Ms\": %.3f, \"p999Ms\": %.3f, \"maxMs\": %.3f",
+                latencies.getTotalCount(),
+                latencies.getTotalCount() / seconds(elapsed),
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+        if (stats != null) {
+            json += String.format(Locale.ROOT, ", \"succeeded\": %d, \"rejected\": %d, \"failed\": %d",
+                    stats.succeeded.sum(), stats.rejected.sum(), stats.failed.sum());
+        }
+        return json + "}";
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1_000_000_000.0;
+    }
+
+    private static final class Stats {
+
+        private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private void reset() {
+            latencies.reset();
+            succeeded.reset();
+            rejected.reset();
+            failed.reset();
+        }
+    }
+}
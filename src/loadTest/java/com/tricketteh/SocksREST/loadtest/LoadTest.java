@@ -0,0 +1,104 @@
+package com.tricketteh.SocksREST.loadtest;
+
+import com.tricketteh.SocksREST.SocksRestApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+/**
+ * End-to-end load test of the REST API. Starts embedded PostgreSQL, runs the application on a random port with the
+ * Flyway migrations applied, seeds the inventory and drives the configured workload with an open-loop generator.
+ * <p>
+ * Settings are system properties: {@code loadTest.rate} (requests per second), {@code loadTest.duration},
+ * {@code loadTest.warmup}, {@code loadTest.mix} (e.g. {@code income=30,outcome=20,filter=20,count=25,batch=5}) and
+ * {@code loadTest.maxInFlight}. Reports are written to the directory given as the first argument.
+ */
+public final class LoadTest {
+
+    private static final int SEED_QUANTITY = 1_000_000;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path reportDirectory = Path.of(args.length > 0 ? args[0] : "build/reports/load-test");
+        int rate = Integer.getInteger("loadTest.rate", 500);
+        Duration duration = Duration.parse(System.getProperty("loadTest.duration", "PT30S"));
+        Duration warmup = Duration.parse(System.getProperty("loadTest.warmup", "PT10S"));
+        int maxInFlight = Integer.getInteger("loadTest.maxInFlight", 10_000);
+        Workload workload = Workload.parse(System.getProperty("loadTest.mix",
+                "income=30,outcome=20,filter=20,count=25,batch=5"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             ConfigurableApplicationContext context = start(postgres)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI base = URI.create("http://localhost:" + port);
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            seed(client, base);
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            OpenLoopGenerator generator = new OpenLoopGenerator(client, base, workload, rate, maxInFlight);
+            if (!warmup.isZero()) {
+                System.out.println("Warming up for " + warmup);
+                generator.run(warmup, recorder);
+                recorder.reset();
+            }
+            System.out.println("Offering " + rate + " req/s of " + workload + " for " + duration);
+            long start = System.nanoTime();
+            generator.run(duration, recorder);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            String description = String.format(Locale.ROOT, "rate=%d req/s, duration=%s, mix=%s, dropped=%d",
+                    rate, duration, workload, generator.dropped());
+            recorder.write(reportDirectory, elapsed, description);
+            System.out.println("Reports written to " + reportDirectory.toAbsolutePath());
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedPostgres postgres) {
+        return new SpringApplicationBuilder(SocksRestApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "?reWriteBatchedInserts=true",
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.tricketteh=WARN")
+                .run();
+    }
+
+    /**
+     * Stocks every sock the workload touches, so outcomes are rejected only when the load drains them.
+     */
+    private static void seed(HttpClient client, URI base) throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("color,cottonPart,quantity\n");
+        for (String color : Operation.COLORS) {
+            for (int cottonPart = 0; cottonPart <= 100; cottonPart += Operation.COTTON_PART_STEP) {
+                csv.append(color).append(',').append(cottonPart).append(',').append(SEED_QUANTITY).append('\n');
+            }
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/api/socks/batch/stream"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString(), StandardCharsets.UTF_8))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding the inventory failed: " + response.body());
+        }
+    }
+}
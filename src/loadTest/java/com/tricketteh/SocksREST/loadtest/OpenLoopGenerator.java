@@ -0,0 +1,76 @@
+package com.tricketteh.SocksREST.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed rate whatever the response times are. Request {@code i} is due at
+ * {@code start + i / rate}; a slow server makes requests queue up instead of being sent later, which is what keeps
+ * the latencies honest.
+ */
+final class OpenLoopGenerator {
+
+    private static final int MAX_PHASER_PARTIES = 65_000;
+
+    private final HttpClient client;
+    private final URI base;
+    private final Workload workload;
+    private final int rate;
+    private final int maxInFlight;
+    private final AtomicLong dropped = new AtomicLong();
+
+    OpenLoopGenerator(HttpClient client, URI base, Workload workload, int rate, int maxInFlight) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Rate must be at least 1 request per second");
+        }
+        if (maxInFlight < 1 || maxInFlight > MAX_PHASER_PARTIES) {
+            throw new IllegalArgumentException("Requests in flight must be between 1 and " + MAX_PHASER_PARTIES);
+        }
+        this.client = client;
+        this.base = base;
+        this.workload = workload;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Offers the load for the given time and waits for the requests in flight. Requests due while
+     * {@code maxInFlight} are outstanding are not sent; they are counted as dropped.
+     */
+    void run(Duration duration, LatencyRecorder recorder) {
+        long intervalNanos = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Phaser inFlight = new Phaser(1);
+
+        for (long due = start; due < end; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.getUnarrivedParties() > maxInFlight) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            Operation operation = workload.next();
+            long scheduledAt = due;
+            inFlight.register();
+            client.sendAsync(operation.request(base), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        recorder.record(operation, System.nanoTime() - scheduledAt,
+                                failure == null ? response.statusCode() : 0);
+                        inFlight.arriveAndDeregister();
+                    });
+        }
+        inFlight.arriveAndAwaitAdvance();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,96 @@
+package com.tricketteh.SocksREST.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Requests of the mixed workload. Every request picks one of a fixed set of socks, so income, outcome and the
+ * queries keep touching the same rows like a real store does.
+ */
+enum Operation {
+
+    INCOME {
+        @Override
+        HttpRequest request(URI base) {
+            return json(base.resolve("/api/socks/income"), randomSock(1 + random().nextInt(10)));
+        }
+    },
+    OUTCOME {
+        @Override
+        HttpRequest request(URI base) {
+            return json(base.resolve("/api/socks/outcome"), randomSock(1 + random().nextInt(5)));
+        }
+    },
+    FILTER {
+        @Override
+        HttpRequest request(URI base) {
+            return HttpRequest.newBuilder(base.resolve("/api/socks?color=" + randomColor()
+                            + "&operation=moreThan&cottonPart=" + randomCottonPart() + "&sortBy=cottonPart&limit=100"))
+                    .GET()
+                    .build();
+        }
+    },
+    COUNT {
+        @Override
+        HttpRequest request(URI base) {
+            return HttpRequest.newBuilder(base.resolve("/api/socks/count?color=" + randomColor()
+                            + "&operation=lessThan&cottonPart=" + randomCottonPart()))
+                    .GET()
+                    .build();
+        }
+    },
+    BATCH {
+        @Override
+        HttpRequest request(URI base) {
+            StringBuilder csv = new StringBuilder("color,cottonPart,quantity\n");
+            for (int i = 0; i < BATCH_ROWS; i++) {
+                csv.append(randomColor()).append(',').append(randomCottonPart()).append(',')
+                        .append(1 + random().nextInt(10)).append('\n');
+            }
+            return HttpRequest.newBuilder(base.resolve("/api/socks/batch/stream"))
+                    .header("Content-Type", "text/csv")
+                    .POST(HttpRequest.BodyPublishers.ofString(csv.toString(), StandardCharsets.UTF_8))
+                    .build();
+        }
+    };
+
+    static final String[] COLORS = {"red", "blue", "black", "white", "green", "yellow", "grey", "navy"};
+    static final int COTTON_PART_STEP = 10;
+    private static final int BATCH_ROWS = 100;
+
+    abstract HttpRequest request(URI base);
+
+    String metricName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Operation of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static HttpRequest json(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static String randomSock(int quantity) {
+        return "{\"color\":\"" + randomColor() + "\",\"cottonPart\":" + randomCottonPart() + ",\"quantity\":" + quantity + "}";
+    }
+
+    private static String randomColor() {
+        return COLORS[random().nextInt(COLORS.length)];
+    }
+
+    private static int randomCottonPart() {
+        return random().nextInt(100 / COTTON_PART_STEP + 1) * COTTON_PART_STEP;
+    }
+
+    private static ThreadLocalRandom random() {
+        return ThreadLocalRandom.current();
+    }
+}
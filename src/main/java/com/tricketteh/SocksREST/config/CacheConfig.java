@@ -0,0 +1,43 @@
+package com.tricketteh.SocksREST.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Caffeine caches behind JCache for Spring's cache abstraction, bounded and reporting statistics through the cache
+ * metrics. Query results are keyed by the {@link com.tricketteh.SocksREST.service.InventoryVersion}, so a change
+ * made through this instance is never followed by an older result; changes made elsewhere, and reads from a lagging
+ * replica, are served for at most one time to live, like the inventory response cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String FILTERED_SOCKS_CACHE = "socks-filtered";
+
+    public static final String SOCKS_COUNT_CACHE = "socks-count";
+
+    @Bean
+    public JCacheManagerCustomizer socksCaches(SocksProperties properties) {
+        SocksProperties.Cache cache = properties.getCache();
+        return cacheManager -> {
+            create(cacheManager, FILTERED_SOCKS_CACHE, cache.getQueryMaxSize(), cache.getTtl());
+            create(cacheManager, SOCKS_COUNT_CACHE, cache.getQueryMaxSize(), cache.getTtl());
+        };
+    }
+
+    private static void create(CacheManager cacheManager, String name, long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -0,0 +1,88 @@
+package com.tricketteh.SocksREST.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary. When the replica
+ * cannot give a connection, reads go to the primary until the retry interval has passed.
+ * <p>
+ * The route is chosen when a connection is borrowed, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transaction managers borrow the
+ * connection before the transaction is marked read-only, and the proxy delays that until the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final Duration retryInterval;
+    private final Clock clock;
+    private volatile Instant replicaDownUntil = Instant.MIN;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration retryInterval) {
+        this(primary, replica, retryInterval, Clock.systemUTC());
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration retryInterval, Clock clock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryInterval = retryInterval;
+        this.clock = clock;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException ex) {
+                replicaFailed(ex);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException ex) {
+                replicaFailed(ex);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && clock.instant().isAfter(replicaDownUntil) ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    private void replicaFailed(SQLException ex) {
+        replicaDownUntil = clock.instant().plus(retryInterval);
+        logger.warn("Replica is unavailable, reading from the primary for {}: {}", retryInterval, ex.getMessage());
+    }
+}
@@ -0,0 +1,339 @@
+package com.tricketteh.SocksREST.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "socks")
+public class SocksProperties {
+
+    private Batch batch = new Batch();
+
+    private Query query = new Query();
+
+    private Index inventoryIndex = new Index();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private Ledger ledger = new Ledger();
+
+    private Stripes stripes = new Stripes();
+
+    private ResponseCache responseCache = new ResponseCache();
+
+    private Colors colors = new Colors();
+
+    private Replica replica = new Replica();
+
+    private Cache cache = new Cache();
+
+    private Stats stats = new Stats();
+
+    private Idempotency idempotency = new Idempotency();
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Number of valid CSV rows buffered before they are flushed as one JDBC batch.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Threads processing asynchronous import jobs.
+         */
+        private int jobThreads = 2;
+
+        /**
+         * Import jobs allowed to wait for a free thread before new submissions are rejected.
+         */
+        private int jobQueueCapacity = 10;
+
+        /**
+         * Import jobs kept in the registry. Finished jobs are evicted oldest first once the limit is reached.
+         */
+        private int maxJobs = 100;
+
+        /**
+         * Largest number of items accepted by one bulk income or outcome request.
+         */
+        private int maxBulkItems = 5000;
+
+        /**
+         * Directory for spooled uploads. The system temporary directory is used when not set.
+         */
+        private Path spoolDirectory;
+
+        /**
+         * Parse files of at least two ranges in line-aligned byte ranges on a fork-join pool.
+         */
+        private boolean parallelParsing = true;
+
+        /**
+         * Threads parsing ranges in parallel. The number of available processors is used when not positive.
+         */
+        private int parseThreads = 0;
+
+        /**
+         * Size of the byte ranges parsed in parallel.
+         */
+        private DataSize parseRangeSize = DataSize.ofMegabytes(8);
+    }
+
+    @Data
+    public static class Query {
+
+        /**
+         * Page size used when a cursor is given without a limit.
+         */
+        private int defaultPageSize = 100;
+
+        /**
+         * Largest accepted page size.
+         */
+        private int maxPageSize = 1000;
+
+        /**
+         * Rows fetched per round trip by streaming queries.
+         */
+        private int fetchSize = 500;
+    }
+
+    @Data
+    public static class Index {
+
+        /**
+         * Serve count queries from an in-memory index instead of the database.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How often the index is compared with the table.
+         */
+        private Duration verifyInterval = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * Accept income and outcome into an in-memory buffer and write them to the database in the background.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How often buffered deltas are written to the database.
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * Buffered deltas that trigger a write before the interval elapses.
+         */
+        private int maxPendingDeltas = 10000;
+
+        /**
+         * Socks whose available stock is kept in memory. Beyond it, socks without pending deltas are dropped after
+         * a flush and loaded from the database again when used.
+         */
+        private int maxBalances = 100000;
+
+        /**
+         * Directory of the journal replayed after a crash.
+         */
+        private Path journalDirectory = Path.of("write-behind");
+
+        /**
+         * Force every journal record to disk. Without it the journal survives a process crash but not a power loss.
+         */
+        private boolean journalSync = false;
+    }
+
+    @Data
+    public static class Ledger {
+
+        /**
+         * Record every stock change in the stock_movements ledger.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Months of partitions kept created after the current one.
+         */
+        private int partitionsAhead = 2;
+
+        /**
+         * How long movements are kept. Older monthly partitions are dropped; movements are kept forever when not set.
+         */
+        private Period retention;
+
+        /**
+         * Period of history returned when no start is given.
+         */
+        private Duration historyWindow = Duration.ofDays(30);
+
+        /**
+         * When partitions are created ahead and expired ones dropped, in UTC.
+         */
+        private String maintenanceCron = "0 0 3 * * *";
+    }
+
+    @Data
+    public static class Stripes {
+
+        /**
+         * Split the quantity of the listed socks across several rows so concurrent writes lock different rows.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Rows each listed sock is split into.
+         */
+        private int count = 8;
+
+        /**
+         * Socks taking most of the traffic.
+         */
+        private List<StripedSock> socks = new ArrayList<>();
+
+        @Data
+        public static class StripedSock {
+
+            private String color;
+
+            private double cottonPart;
+        }
+    }
+
+    @Data
+    public static class ResponseCache {
+
+        /**
+         * Serve repeated listing and count queries from serialized responses while the inventory is unchanged.
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long a cached response is served, bounding the staleness of changes made by other instances or
+         * directly in the database.
+         */
+        private Duration ttl = Duration.ofSeconds(5);
+
+        /**
+         * Responses kept. The least recently used one is evicted first.
+         */
+        private int maxEntries = 256;
+    }
+
+    @Data
+    public static class Colors {
+
+        /**
+         * Color ids kept in memory. Colors are never removed, so cached ids stay valid.
+         */
+        private int cacheSize = 10_000;
+    }
+
+    @Data
+    public static class Replica {
+
+        /**
+         * JDBC URL of the read replica. Read-only transactions are routed to it when set.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Connections kept to the replica.
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * How long a read waits for a replica connection before it goes to the primary.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+
+        /**
+         * How long reads go to the primary after the replica failed to give a connection.
+         */
+        private Duration retryInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Results kept per query cache.
+         */
+        private long queryMaxSize = 1_000;
+
+        /**
+         * How long an entry is kept, bounding the staleness of changes made by other instances. Keep it no longer than
+         * the response cache TTL.
+         */
+        private Duration ttl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Stats {
+
+        /**
+         * Width of the cotton part buckets of the inventory stats, in percent. The last bucket includes 100.
+         */
+        private double bucketWidth = 10;
+    }
+
+    @Data
+    public static class Idempotency {
+
+        /**
+         * Replay the response of income and outcome requests sent again with the same Idempotency-Key header.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Where keys and their responses are kept: in memory of this instance or in a table shared by all instances.
+         */
+        private Store store = Store.MEMORY;
+
+        /**
+         * How long a key and its response are kept.
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Keys kept in memory. The oldest answered key is dropped once the limit is reached; new keys get 503 while
+         * all of them are in progress.
+         */
+        private int maxKeys = 100_000;
+
+        /**
+         * How long a request holds its key. A key still held after that, e.g. by a crashed instance, is taken over.
+         */
+        private Duration lockTimeout = Duration.ofSeconds(30);
+
+        /**
+         * How long a repeated request waits for the first one to finish before it is answered with 409.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(5);
+
+        /**
+         * How often expired keys are deleted from the table.
+         */
+        private Duration purgeInterval = Duration.ofMinutes(1);
+
+        public enum Store {
+            MEMORY,
+            TABLE
+        }
+    }
+}
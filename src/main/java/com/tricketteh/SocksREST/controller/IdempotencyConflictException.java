@@ -0,0 +1,11 @@
+package com.tricketteh.SocksREST.controller;
+
+/**
+ * Thrown when a request repeats an Idempotency-Key whose first request did not finish in time.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
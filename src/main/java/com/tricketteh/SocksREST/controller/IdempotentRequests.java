@@ -0,0 +1,155 @@
+package com.tricketteh.SocksREST.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.service.IdempotencyClaim;
+import com.tricketteh.SocksREST.service.IdempotencyStore;
+import com.tricketteh.SocksREST.service.IdempotentResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Executes write requests at most once per Idempotency-Key. A request repeating a key gets the response of the
+ * first one without touching the database; while the first one is in progress, it waits for it. Only successful
+ * responses are kept: a failed request releases its key, so a retry executes again.
+ */
+@Component
+public class IdempotentRequests {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotentRequests.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long waitTimeoutNanos;
+
+    public IdempotentRequests(IdempotencyStore store, ObjectMapper objectMapper, SocksProperties properties) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.getIdempotency().isEnabled();
+        this.waitTimeoutNanos = properties.getIdempotency().getWaitTimeout().toNanos();
+    }
+
+    /**
+     * Runs the handler unless a request with the same key was answered, in which case its response is returned.
+     * The operation and the request body must match those of the first request.
+     */
+    public <T> ResponseEntity<T> execute(String key, String operation, Object request, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> handler) {
+        if (key == null || !enabled) {
+            return handler.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(IDEMPOTENCY_KEY_HEADER + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyClaim claim = awaitClaim(key, fingerprint(operation, request));
+        if (claim.state() == IdempotencyClaim.State.COMPLETED) {
+            return replay(claim.response(), bodyType);
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = handler.get();
+        } catch (RuntimeException ex) {
+            store.release(key, claim.token());
+            throw ex;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            store.release(key, claim.token());
+            return response;
+        }
+        try {
+            store.complete(key, claim.token(), toStored(response));
+        } catch (RuntimeException ex) {
+            // The write is committed; the key stays claimed until the lock timeout and a later retry executes again.
+            logger.error("Failed to store the response of {} {}", IDEMPOTENCY_KEY_HEADER, key, ex);
+        }
+        return response;
+    }
+
+    private IdempotencyClaim awaitClaim(String key, String fingerprint) {
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        while (true) {
+            IdempotencyClaim claim = store.claim(key, fingerprint);
+            switch (claim.state()) {
+                case ACQUIRED, COMPLETED -> {
+                    return claim;
+                }
+                case MISMATCH -> throw new IllegalArgumentException(
+                        IDEMPOTENCY_KEY_HEADER + " " + key + " was already used with a different request");
+                case IN_PROGRESS -> {
+                    if (System.nanoTime() - deadline >= 0) {
+                        throw new IdempotencyConflictException("A request with " + IDEMPOTENCY_KEY_HEADER + " " + key
+                                + " is still in progress");
+                    }
+                    try {
+                        Thread.sleep(POLL_INTERVAL_MILLIS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IdempotencyConflictException("Interrupted while waiting for " + IDEMPOTENCY_KEY_HEADER
+                                + " " + key);
+                    }
+                }
+            }
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotentResponse stored, Class<T> bodyType) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.location() != null) {
+            builder.location(URI.create(stored.location()));
+        }
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        try {
+            return builder.body(objectMapper.readValue(stored.body(), bodyType));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private IdempotentResponse toStored(ResponseEntity<?> response) {
+        URI location = response.getHeaders().getLocation();
+        return new IdempotentResponse(response.getStatusCode().value(),
+                location == null ? null : location.toString(),
+                response.getBody() == null ? null : json(response.getBody()));
+    }
+
+    /**
+     * Identifies a request by its operation and the hash of its body, so a key reused for another request is detected.
+     */
+    private String fingerprint(String operation, Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json(request));
+            return operation + ":" + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.tricketteh.SocksREST.controller;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Serialized responses of inventory queries with their ETags. An entry is valid while the inventory version of this
+ * instance is unchanged and at most one time to live, so changes made by another instance or directly in the
+ * database are served after that time at the latest. The least recently used entry is evicted once the cache is full.
+ */
+@Component
+public class InventoryResponseCache {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, Entry> entries;
+
+    public InventoryResponseCache(SocksProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    InventoryResponseCache(SocksProperties properties, LongSupplier nanoTime) {
+        SocksProperties.ResponseCache cacheProperties = properties.getResponseCache();
+        this.enabled = cacheProperties.isEnabled();
+        this.ttlNanos = cacheProperties.getTtl().toNanos();
+        this.nanoTime = nanoTime;
+        int maxEntries = cacheProperties.getMaxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public CachedResponse get(String key, long version) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version != version || nanoTime.getAsLong() - entry.storedAt >= ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response;
+        }
+    }
+
+    public void put(String key, long version, CachedResponse response) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(version, nanoTime.getAsLong(), response));
+        }
+    }
+
+    /**
+     * A serialized response. Its ETag is a hash of the body and the next cursor, so equal data gets the same ETag on
+     * every instance and after a restart.
+     */
+    public record CachedResponse(byte[] body, String nextCursor, String etag) {
+
+        public CachedResponse(byte[] body, String nextCursor) {
+            this(body, nextCursor, etag(body, nextCursor));
+        }
+
+        private static String etag(byte[] body, String nextCursor) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(body);
+                if (nextCursor != null) {
+                    digest.update((byte) 0);
+                    digest.update(nextCursor.getBytes(StandardCharsets.UTF_8));
+                }
+                byte[] hash = Arrays.copyOf(digest.digest(), 16);
+                return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private record Entry(long version, long storedAt, CachedResponse response) {
+    }
+}
@@ -1,20 +1,62 @@
 package com.tricketteh.SocksREST.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opencsv.CSVWriter;
+import com.tricketteh.SocksREST.controller.InventoryResponseCache.CachedResponse;
+import com.tricketteh.SocksREST.dto.BulkResultDTO;
+import com.tricketteh.SocksREST.dto.ImportJobDTO;
+import com.tricketteh.SocksREST.dto.InventoryStatsDTO;
 import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.dto.SocksPageDTO;
+import com.tricketteh.SocksREST.dto.StockMovementPageDTO;
 import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.StockMovement;
+import com.tricketteh.SocksREST.service.BatchFormat;
+import com.tricketteh.SocksREST.service.ImportJobService;
+import com.tricketteh.SocksREST.service.ImportProgress;
+import com.tricketteh.SocksREST.service.InventoryStats;
+import com.tricketteh.SocksREST.service.InventoryVersion;
 import com.tricketteh.SocksREST.service.SockService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static com.tricketteh.SocksREST.controller.IdempotentRequests.IDEMPOTENCY_KEY_HEADER;
 
 @RestController
 @RequiredArgsConstructor
@@ -22,48 +64,213 @@ import java.util.Map;
 @Tag(name = "Socks", description = "Controller provides interactions with socks in store e.g. income, outcome, update")
 public class SocksController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String[] EXPORT_HEADER = {"color", "cottonPart", "quantity"};
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     private final SockService sockService;
+    private final ImportJobService importJobService;
+    private final ObjectMapper objectMapper;
+    private final InventoryVersion inventoryVersion;
+    private final InventoryResponseCache responseCache;
+    private final InventoryStats inventoryStats;
+    private final IdempotentRequests idempotentRequests;
 
     @Operation(
             summary = "Socks income",
-            description = "Allows to register socks income"
+            description = "Allows to register socks income. Returns 202 when the income is buffered by write-behind. " +
+                    "A request repeating an Idempotency-Key gets the response of the first one"
     )
     @PostMapping("income")
-    public ResponseEntity<Sock> socksIncome(@RequestBody @Valid SocksDTO socksDTO, UriComponentsBuilder uriBuilder) {
-        Sock sock = sockService.socksIncome(socksDTO);
-        return ResponseEntity
-                .created(uriBuilder
-                        .path("{sockId}")
-                        .build(Map.of("sockId", sock.getId())))
-                .body(sock);
-
+    public ResponseEntity<Sock> socksIncome(@RequestBody @Valid SocksDTO socksDTO, UriComponentsBuilder uriBuilder,
+                                            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotentRequests.execute(idempotencyKey, "income", socksDTO, Sock.class, () -> {
+            Sock sock = sockService.socksIncome(socksDTO);
+            if (sock.getId() == null) {
+                // Buffered by write-behind: the row is written later and has no id yet.
+                return ResponseEntity.accepted().body(sock);
+            }
+            return ResponseEntity
+                    .created(uriBuilder
+                            .path("{sockId}")
+                            .build(Map.of("sockId", sock.getId())))
+                    .body(sock);
+        });
     }
 
     @Operation(
             summary = "Socks outcome",
-            description = "Allows to register socks outcome"
+            description = "Allows to register socks outcome. A request repeating an Idempotency-Key is not applied again"
     )
     @PostMapping("outcome")
-    public ResponseEntity<Sock> socksOutcome(SocksDTO socksDTO) {
-        sockService.socksOutcome(socksDTO);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Sock> socksOutcome(@RequestBody @Valid SocksDTO socksDTO,
+                                             @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotentRequests.execute(idempotencyKey, "outcome", socksDTO, Sock.class, () -> {
+            sockService.socksOutcome(socksDTO);
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    @Operation(
+            summary = "Bulk socks income",
+            description = "Allows to register many socks incomes in one transaction. Items of the same socks are " +
+                    "summed before they are saved and the result of every item is returned. A request repeating an " +
+                    "Idempotency-Key gets the result of the first one"
+    )
+    @PostMapping("income/bulk")
+    public ResponseEntity<BulkResultDTO> socksIncomeBulk(@RequestBody List<SocksDTO> items,
+                                                         @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotentRequests.execute(idempotencyKey, "income/bulk", items, BulkResultDTO.class,
+                () -> ResponseEntity.ok(sockService.socksIncomeBulk(items)));
+    }
+
+    @Operation(
+            summary = "Bulk socks outcome",
+            description = "Allows to register many socks outcomes in one transaction. Items that cannot be applied " +
+                    "are reported in the result while the others are saved. A request repeating an Idempotency-Key " +
+                    "gets the result of the first one"
+    )
+    @PostMapping("outcome/bulk")
+    public ResponseEntity<BulkResultDTO> socksOutcomeBulk(@RequestBody List<SocksDTO> items,
+                                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotentRequests.execute(idempotencyKey, "outcome/bulk", items, BulkResultDTO.class,
+                () -> ResponseEntity.ok(sockService.socksOutcomeBulk(items)));
     }
 
     @Operation(
             summary = "Get all socks",
-            description = "Allows to get all socks filtered or sorted"
+            description = "Allows to get all socks filtered or sorted. With limit or after the result is paginated " +
+                    "by keyset and the cursor of the next page is returned in the X-Next-Cursor header. The ETag " +
+                    "changes with the inventory, so If-None-Match returns 304 while nothing was changed"
     )
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = Sock.class))))
     @GetMapping()
-    public ResponseEntity<List<Sock>> getSocks(@RequestParam(required = false) String color,
-                                               @RequestParam(required = false) String operation,
-                                               @RequestParam(required = false) Double cottonPart,
-                                               @RequestParam(required = false) Double cottonPartMin,
-                                               @RequestParam(required = false) Double cottonPartMax,
-                                               @RequestParam(required = false) String sortBy) {
-        List<Sock> result = sockService.getFilteredAndSortedSocks(
-                color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy
-        );
-        return ResponseEntity.ok(result);
+    public ResponseEntity<byte[]> getSocks(@RequestParam(required = false) String color,
+                                           @RequestParam(required = false) String operation,
+                                           @RequestParam(required = false) Double cottonPart,
+                                           @RequestParam(required = false) Double cottonPartMin,
+                                           @RequestParam(required = false) Double cottonPartMax,
+                                           @RequestParam(required = false) String sortBy,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String after,
+                                           ServletWebRequest webRequest) {
+        return conditionalJson(webRequest, () -> {
+            if (limit == null && after == null) {
+                List<Sock> result = sockService.getFilteredAndSortedSocks(
+                        color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy
+                );
+                return new CachedResponse(json(result), null);
+            }
+
+            SocksPageDTO page = sockService.getSocksPage(
+                    color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy, after, limit
+            );
+            return new CachedResponse(json(page.getItems()), page.getNextCursor());
+        });
+    }
+
+    @Operation(
+            summary = "Stream all socks",
+            description = "Allows to get all socks filtered or sorted as a JSON array written while rows are read"
+    )
+    @GetMapping("stream")
+    public ResponseEntity<StreamingResponseBody> streamSocks(@RequestParam(required = false) String color,
+                                                             @RequestParam(required = false) String operation,
+                                                             @RequestParam(required = false) Double cottonPart,
+                                                             @RequestParam(required = false) Double cottonPartMin,
+                                                             @RequestParam(required = false) Double cottonPartMax,
+                                                             @RequestParam(required = false) String sortBy) {
+        ObjectWriter writer = objectMapper.writerFor(Sock.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                sockService.streamFilteredAndSortedSocks(color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy,
+                        sock -> writeSock(generator, writer, sock));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Export socks to CSV",
+            description = "Allows to download socks filtered or sorted as CSV accepted by the batch upload. Rows are " +
+                    "written while they are read and gzipped when the client accepts gzip encoding"
+    )
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportSocks(@RequestParam(required = false) String color,
+                                                             @RequestParam(required = false) String operation,
+                                                             @RequestParam(required = false) Double cottonPart,
+                                                             @RequestParam(required = false) Double cottonPartMin,
+                                                             @RequestParam(required = false) Double cottonPartMax,
+                                                             @RequestParam(required = false) String sortBy,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                             String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, STREAM_BUFFER_SIZE) : outputStream;
+            try (CSVWriter writer = new CSVWriter(new BufferedWriter(
+                    new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE))) {
+                writer.writeNext(EXPORT_HEADER, false);
+                sockService.streamFilteredAndSortedSocks(color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy,
+                        sock -> writer.writeNext(new String[]{
+                                sock.getColor(), String.valueOf(sock.getCottonPart()), String.valueOf(sock.getQuantity())
+                        }, false));
+                if (writer.checkError()) {
+                    throw new IOException("Failed to write socks export");
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"socks.csv\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @Operation(
+            summary = "Get socks count",
+            description = "Allows to get total socks quantity filtered by color and cotton part. Supports " +
+                    "If-None-Match like getting all socks"
+    )
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = Integer.class)))
+    @GetMapping("count")
+    public ResponseEntity<byte[]> getSocksCount(@RequestParam(required = false) String color,
+                                                @RequestParam(required = false) String operation,
+                                                @RequestParam(required = false) Double cottonPart,
+                                                @RequestParam(required = false) Double cottonPartMin,
+                                                @RequestParam(required = false) Double cottonPartMax,
+                                                ServletWebRequest webRequest) {
+        return conditionalJson(webRequest, () -> new CachedResponse(
+                json(sockService.getSocksCount(color, operation, cottonPart, cottonPartMin, cottonPartMax)), null));
+    }
+
+    @Operation(
+            summary = "Get socks stats",
+            description = "Allows to get total socks quantity and number of socks in stock per color and per cotton " +
+                    "part bucket. Served from an in-memory rollup kept up to date by every change"
+    )
+    @GetMapping("stats")
+    public ResponseEntity<InventoryStatsDTO> getSocksStats() {
+        return ResponseEntity.ok(inventoryStats.stats());
+    }
+
+    @Operation(
+            summary = "Rebuild socks stats",
+            description = "Allows to rebuild the stats rollup from the socks table when it drifted, returns the rebuilt stats"
+    )
+    @PostMapping("stats/rebuild")
+    public ResponseEntity<InventoryStatsDTO> rebuildSocksStats() {
+        inventoryStats.rebuild();
+        return ResponseEntity.ok(inventoryStats.stats());
     }
 
     @Operation(
@@ -76,6 +283,25 @@ public class SocksController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+            summary = "Get sock history",
+            description = "Allows to get stock movements of a sock created between from (inclusive) and to (exclusive), " +
+                    "by default during the last 30 days. The cursor of the next page is returned in the X-Next-Cursor header"
+    )
+    @GetMapping("{id}/history")
+    public ResponseEntity<List<StockMovement>> getSockHistory(@PathVariable Long id,
+                                                              @RequestParam(required = false) Instant from,
+                                                              @RequestParam(required = false) Instant to,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestParam(required = false) String after) {
+        StockMovementPageDTO page = sockService.getSockHistory(id, from, to, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
     @Operation(
             summary = "Upload socks batch from CSV file",
             description = "Allows to upload socks from CSV file"
@@ -91,4 +317,159 @@ public class SocksController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error happened in file loading: " + ex.getMessage());
         }
     }
+
+    @Operation(
+            summary = "Upload socks batch stream",
+            description = "Allows to upload socks as the raw request body in CSV (text/csv) or one JSON object per " +
+                    "line (application/x-ndjson), decoded as UTF-8. The body may be gzipped with Content-Encoding: gzip"
+    )
+    @PostMapping(value = "/batch/stream", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<String> uploadSockBatchStream(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                        @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false)
+                                                        String contentEncoding,
+                                                        HttpServletRequest request) {
+        try {
+            if (contentType.getCharset() != null && !StandardCharsets.UTF_8.equals(contentType.getCharset())) {
+                throw new IllegalArgumentException("Batch must be encoded in UTF-8");
+            }
+            BatchFormat format = BatchFormat.ofMediaType(contentType.getType() + "/" + contentType.getSubtype());
+            try (InputStream body = decodeBody(request.getInputStream(), contentEncoding)) {
+                sockService.loadBatch(body, format, new ImportProgress());
+            }
+            return ResponseEntity.ok("File successfully loaded.");
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + ex.getMessage());
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error happened in file loading: " + ex.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Submit socks batch import job",
+            description = "Allows to upload socks from CSV file in background and poll the import progress"
+    )
+    @PostMapping(value = "/batch", params = "async=true")
+    public ResponseEntity<ImportJobDTO> submitSockBatch(@RequestParam("file") MultipartFile file,
+                                                        UriComponentsBuilder uriBuilder) throws IOException {
+        ImportJobDTO job = importJobService.submit(file);
+        return ResponseEntity
+                .accepted()
+                .location(uriBuilder
+                        .path("/api/socks/batch/{jobId}")
+                        .build(Map.of("jobId", job.getJobId())))
+                .body(job);
+    }
+
+    @Operation(
+            summary = "Get socks batch import job",
+            description = "Allows to get progress of socks batch import job"
+    )
+    @GetMapping("/batch/{jobId}")
+    public ResponseEntity<ImportJobDTO> getSockBatchJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
+
+    /**
+     * Answers a GET from the response cache or the loader. The ETag is a hash of the body, so a conditional GET gets a
+     * 304 whenever the data is unchanged, on any instance. The response is cached under the inventory version read
+     * before loading; a change committed while loading can only make the body newer than that version, which costs
+     * one more load.
+     */
+    private ResponseEntity<byte[]> conditionalJson(ServletWebRequest webRequest, Supplier<CachedResponse> loader) {
+        long version = inventoryVersion.current();
+        HttpServletRequest request = webRequest.getRequest();
+        String key = request.getRequestURI() + "?" + request.getQueryString();
+        CachedResponse response = responseCache.get(key, version);
+        if (response == null) {
+            response = loader.get();
+            responseCache.put(key, version, response);
+        }
+        if (webRequest.checkNotModified(response.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag()).build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(response.etag())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (response.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, response.nextCursor());
+        }
+        return builder.body(response.body());
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static InputStream decodeBody(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.trim().equalsIgnoreCase("identity")) {
+            return body;
+        }
+        if (!contentEncoding.trim().equalsIgnoreCase("gzip") && !contentEncoding.trim().equalsIgnoreCase("x-gzip")) {
+            throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+        }
+        try {
+            return new GzipBody(new GZIPInputStream(body, STREAM_BUFFER_SIZE));
+        } catch (ZipException ex) {
+            throw new IllegalArgumentException("Body is not in gzip format");
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private void writeSock(JsonGenerator generator, ObjectWriter writer, Sock sock) {
+        try {
+            writer.writeValue(generator, sock);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reports gzip data corrupted after a valid header as a client error. The body ends at the corruption, so the
+     * import stops there and answers with the error.
+     */
+    private static final class GzipBody extends FilterInputStream {
+
+        private boolean corrupt;
+
+        private GzipBody(InputStream gzip) {
+            super(gzip);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (corrupt) {
+                return -1;
+            }
+            try {
+                return super.read(buffer, offset, length);
+            } catch (ZipException | EOFException ex) {
+                corrupt = true;
+                throw new IllegalArgumentException("Corrupt gzip body: " + ex.getMessage());
+            }
+        }
+    }
 }
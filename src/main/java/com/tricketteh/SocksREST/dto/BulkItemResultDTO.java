@@ -0,0 +1,22 @@
+package com.tricketteh.SocksREST.dto;
+
+import com.tricketteh.SocksREST.service.BulkItemStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResultDTO {
+
+    @Schema(description = "Position of the item in the request array", example = "0")
+    private int index;
+
+    @Schema(description = "Result of the item", example = "APPLIED")
+    private BulkItemStatus status;
+
+    @Schema(description = "Reason of a rejected item", example = "Socks outcome quantity exceeds the available stock")
+    private String message;
+}
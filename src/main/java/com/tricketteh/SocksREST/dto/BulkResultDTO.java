@@ -0,0 +1,23 @@
+package com.tricketteh.SocksREST.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResultDTO {
+
+    @Schema(description = "Number of applied items", example = "498")
+    private int applied;
+
+    @Schema(description = "Number of rejected items", example = "2")
+    private int rejected;
+
+    @Schema(description = "Result of every item in request order")
+    private List<BulkItemResultDTO> items;
+}
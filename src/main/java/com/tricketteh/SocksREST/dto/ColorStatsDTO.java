@@ -0,0 +1,21 @@
+package com.tricketteh.SocksREST.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ColorStatsDTO {
+
+    @Schema(description = "Sock color", example = "red")
+    private String color;
+
+    @Schema(description = "Total quantity of socks of the color", example = "340")
+    private long quantity;
+
+    @Schema(description = "Number of cotton parts of the color in stock", example = "3")
+    private long skus;
+}
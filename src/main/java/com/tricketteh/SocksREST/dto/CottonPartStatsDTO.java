@@ -0,0 +1,24 @@
+package com.tricketteh.SocksREST.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CottonPartStatsDTO {
+
+    @Schema(description = "Lowest cotton part of the bucket, inclusive", example = "50")
+    private double cottonPartMin;
+
+    @Schema(description = "Highest cotton part of the bucket, exclusive unless it is 100", example = "60")
+    private double cottonPartMax;
+
+    @Schema(description = "Total quantity of socks in the bucket", example = "410")
+    private long quantity;
+
+    @Schema(description = "Number of color and cotton part combinations in the bucket in stock", example = "4")
+    private long skus;
+}
@@ -0,0 +1,46 @@
+package com.tricketteh.SocksREST.dto;
+
+import com.tricketteh.SocksREST.service.ImportJobStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDTO {
+
+    @Schema(description = "Import job identifier", example = "1b4e28ba-2fa1-11d2-883f-0016d3cca427")
+    private String jobId;
+
+    @Schema(description = "Import job status", example = "RUNNING")
+    private ImportJobStatus status;
+
+    @Schema(description = "CSV rows parsed so far, including rejected ones", example = "150000")
+    private long rowsParsed;
+
+    @Schema(description = "CSV rows written to the database so far", example = "149000")
+    private long rowsPersisted;
+
+    @Schema(description = "Parsing throughput in rows per second", example = "52000.5")
+    private double rowsPerSecond;
+
+    @Schema(description = "Number of rejected rows", example = "0")
+    private int errorCount;
+
+    @Schema(description = "First rejected rows with their line numbers")
+    private List<String> errors;
+
+    @Schema(description = "Failure reason of a failed job")
+    private String failure;
+
+    private Instant submittedAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+}
@@ -0,0 +1,26 @@
+package com.tricketteh.SocksREST.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryStatsDTO {
+
+    @Schema(description = "Total quantity of socks in store", example = "1520")
+    private long quantity;
+
+    @Schema(description = "Number of color and cotton part combinations in stock", example = "12")
+    private long skus;
+
+    @Schema(description = "Totals per color, by color name")
+    private List<ColorStatsDTO> colors;
+
+    @Schema(description = "Totals per cotton part bucket, by bucket")
+    private List<CottonPartStatsDTO> cottonParts;
+}
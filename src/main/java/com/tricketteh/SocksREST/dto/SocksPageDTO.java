@@ -0,0 +1,21 @@
+package com.tricketteh.SocksREST.dto;
+
+import com.tricketteh.SocksREST.entity.Sock;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SocksPageDTO {
+
+    @Schema(description = "Socks of the page")
+    private List<Sock> items;
+
+    @Schema(description = "Cursor of the next page, absent on the last page", example = "MTI6cmVk")
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.tricketteh.SocksREST.dto;
+
+import com.tricketteh.SocksREST.repository.StockMovement;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMovementPageDTO {
+
+    @Schema(description = "Movements of the page in time order")
+    private List<StockMovement> items;
+
+    @Schema(description = "Cursor of the next page, absent on the last page", example = "NDI6MjAyNi0xMC0xOFQwNTowOTozM1o")
+    private String nextCursor;
+}
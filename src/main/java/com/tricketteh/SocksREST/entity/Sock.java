@@ -1,9 +1,11 @@
 package com.tricketteh.SocksREST.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 import org.hibernate.proxy.HibernateProxy;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 import java.io.Serializable;
 import java.util.Objects;
 
@@ -22,15 +24,26 @@ public class Sock implements Serializable {
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @Column(name = "color", nullable = false)
+    /**
+     * Name of the color, read from the {@code colors} dictionary. Changes are saved through {@link #colorId}.
+     */
+    @Formula("(SELECT c.name FROM public.colors c WHERE c.id = color_id)")
     private String color;
 
     @Column(name = "cotton_part", nullable = false)
     private Double cottonPart;
 
-    @Column(name = "color")
+    @Column(name = "quantity")
     private Integer quantity;
 
+    @JsonIgnore
+    @Column(name = "color_id", nullable = false)
+    private Integer colorId;
+
+    public Sock(Long id, String color, Double cottonPart, Integer quantity) {
+        this(id, color, cottonPart, quantity, null);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,119 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Small integer ids of the lower-cased color names in {@code colors}. Colors are never removed, so resolved ids are
+ * kept in a bounded cache. Ids of colors created in a transaction are cached only after it commits.
+ */
+@Repository
+public class ColorDictionary {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Map<String, Integer> ids;
+
+    public ColorDictionary(NamedParameterJdbcTemplate jdbcTemplate, SocksProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        int cacheSize = properties.getColors().getCacheSize();
+        this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static String normalize(String color) {
+        return color == null ? null : color.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the id of the color in any case, {@code null} when there is no such color.
+     */
+    public Integer findId(String color) {
+        String name = normalize(color);
+        Integer id = cached(name);
+        if (id != null) {
+            return id;
+        }
+        List<Integer> found = jdbcTemplate.queryForList(
+                "SELECT id FROM public.colors WHERE name = :name", Map.of("name", name), Integer.class);
+        if (found.isEmpty()) {
+            return null;
+        }
+        cache(Map.of(name, found.get(0)));
+        return found.get(0);
+    }
+
+    public int getOrCreateId(String color) {
+        return getOrCreateIds(List.of(color)).get(normalize(color));
+    }
+
+    /**
+     * Returns the ids of the colors by their normalized names, creating the missing colors in one statement.
+     */
+    public Map<String, Integer> getOrCreateIds(Collection<String> colors) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = colors.stream()
+                .map(ColorDictionary::normalize)
+                .distinct()
+                .filter(name -> {
+                    Integer id = cached(name);
+                    if (id != null) {
+                        result.put(name, id);
+                    }
+                    return id == null;
+                })
+                .toList();
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Object> parameters = Map.of("names", missing.toArray(String[]::new));
+        jdbcTemplate.update("""
+                INSERT INTO public.colors (name)
+                SELECT name FROM unnest(CAST(:names AS VARCHAR[])) AS name
+                ORDER BY name
+                ON CONFLICT (name) DO NOTHING
+                """, parameters);
+        Map<String, Integer> created = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM public.colors WHERE name = ANY(CAST(:names AS VARCHAR[]))", parameters,
+                (RowCallbackHandler) rs -> created.put(rs.getString("name"), rs.getInt("id")));
+        result.putAll(created);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache(created);
+                }
+            });
+        } else {
+            cache(created);
+        }
+        return result;
+    }
+
+    private Integer cached(String name) {
+        synchronized (ids) {
+            return ids.get(name);
+        }
+    }
+
+    private void cache(Map<String, Integer> resolved) {
+        synchronized (ids) {
+            ids.putAll(resolved);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.tricketteh.SocksREST.repository;
+
+/**
+ * Row of an Idempotency-Key. The status is {@code null} while the request holding the key is in progress.
+ */
+public record IdempotencyKey(String fingerprint, Integer status, String location, byte[] body) {
+}
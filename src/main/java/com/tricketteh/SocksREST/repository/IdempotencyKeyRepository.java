@@ -0,0 +1,82 @@
+package com.tricketteh.SocksREST.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Idempotency-Keys shared by all instances. Claiming relies on the primary key, so of concurrent requests with
+ * the same key exactly one inserts or takes over the row. The row keeps the token of that claim, so a request
+ * whose key was taken over can no longer complete or release it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the key for a request in progress, or takes it over when it expired or its request held it longer
+     * than the lock timeout. Returns {@code false} when the key is held or answered.
+     */
+    public boolean claim(String key, String fingerprint, UUID token, Duration lockTimeout, Duration ttl) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("fingerprint", fingerprint)
+                .addValue("token", token)
+                .addValue("lockTimeout", lockTimeout.toMillis())
+                .addValue("ttl", ttl.toMillis());
+        return jdbcTemplate.update("""
+                INSERT INTO public.idempotency_keys (idempotency_key, fingerprint, claim_token, locked_until)
+                VALUES (:key, :fingerprint, :token, now() + :lockTimeout * INTERVAL '1 millisecond')
+                ON CONFLICT (idempotency_key) DO UPDATE
+                SET fingerprint = EXCLUDED.fingerprint, claim_token = EXCLUDED.claim_token, status = NULL,
+                    location = NULL, body = NULL, created_at = now(), locked_until = EXCLUDED.locked_until
+                WHERE idempotency_keys.created_at < now() - :ttl * INTERVAL '1 millisecond'
+                   OR (idempotency_keys.status IS NULL AND idempotency_keys.locked_until < now())
+                """, parameters) == 1;
+    }
+
+    public Optional<IdempotencyKey> find(String key) {
+        List<IdempotencyKey> rows = jdbcTemplate.query(
+                "SELECT fingerprint, status, location, body FROM public.idempotency_keys WHERE idempotency_key = :key",
+                Map.of("key", key),
+                (rs, rowNum) -> new IdempotencyKey(rs.getString("fingerprint"), rs.getObject("status", Integer.class),
+                        rs.getString("location"), rs.getBytes("body")));
+        return rows.stream().findFirst();
+    }
+
+    public void complete(String key, UUID token, int status, String location, byte[] body) {
+        jdbcTemplate.update("""
+                UPDATE public.idempotency_keys
+                SET status = :status, location = :location, body = :body
+                WHERE idempotency_key = :key AND claim_token = :token AND status IS NULL
+                """, new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("token", token)
+                .addValue("status", status)
+                .addValue("location", location, Types.VARCHAR)
+                .addValue("body", body, Types.BINARY));
+    }
+
+    public void release(String key, UUID token) {
+        jdbcTemplate.update("""
+                DELETE FROM public.idempotency_keys
+                WHERE idempotency_key = :key AND claim_token = :token AND status IS NULL
+                """, Map.of("key", key, "token", token));
+    }
+
+    public int deleteExpired(Duration ttl) {
+        return jdbcTemplate.update(
+                "DELETE FROM public.idempotency_keys WHERE created_at < now() - :ttl * INTERVAL '1 millisecond'",
+                Map.of("ttl", ttl.toMillis()));
+    }
+}
@@ -0,0 +1,8 @@
+package com.tricketteh.SocksREST.repository;
+
+/**
+ * Write-behind delta of a sock set aside because its batch could not be written. The id is {@code null} until it
+ * is stored.
+ */
+public record ParkedDelta(Long id, String color, double cottonPart, long delta) {
+}
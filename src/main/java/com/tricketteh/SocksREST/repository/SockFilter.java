@@ -0,0 +1,8 @@
+package com.tricketteh.SocksREST.repository;
+
+/**
+ * Optional filters of socks queries. A null value does not restrict the result; the operation applies only together
+ * with a cotton part.
+ */
+public record SockFilter(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax) {
+}
@@ -0,0 +1,62 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.entity.Sock;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface SockJdbcRepository {
+
+    Sock upsertIncome(String color, Double cottonPart, Integer quantity);
+
+    /**
+     * Adds the quantities of the socks, which may be negative. Deltas of striped socks go to their stripes, so a
+     * negative one is taken from the slots as well as from the row. Must run in a transaction.
+     */
+    void upsertIncomeAll(Collection<Sock> socks);
+
+    int decrementQuantity(String color, Double cottonPart, Integer quantity);
+
+    int[] decrementQuantityAll(List<Sock> socks);
+
+    /**
+     * Returns the quantity of the sock including its stripes, {@code null} when there is no such sock.
+     */
+    Integer findQuantity(String color, Double cottonPart);
+
+    /**
+     * Compares colors in any case, like every color filter.
+     */
+    boolean existsByColorAndCottonPart(String color, Double cottonPart);
+
+    /**
+     * Returns the dictionary id of the color, creating the color when it is new.
+     */
+    int getOrCreateColorId(String color);
+
+    /**
+     * Moves the stock of a striped sock out of its stripes and returns the moved quantity.
+     */
+    long drainStripes(long sockId);
+
+    /**
+     * Returns whether the sock is striped. A striped sock is routed to its slots by color and cotton part, so those
+     * cannot change.
+     */
+    boolean isStriped(long sockId);
+
+    List<Sock> findFilteredAndSorted(SockFilter filter, String sortBy);
+
+    List<Sock> findPage(SockFilter filter, String sortBy, Object afterSortValue, Long afterId, int limit);
+
+    void streamFilteredAndSorted(SockFilter filter, String sortBy, int fetchSize, Consumer<Sock> consumer);
+
+    long sumQuantity(SockFilter filter);
+
+    /**
+     * Runs a trivial statement, so a repeatable read transaction takes its snapshot now and later queries of the
+     * transaction see the table as of this call.
+     */
+    void startSnapshot();
+}
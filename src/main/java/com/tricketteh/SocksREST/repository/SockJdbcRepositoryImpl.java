@@ -0,0 +1,234 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.entity.Sock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class SockJdbcRepositoryImpl implements SockJdbcRepository {
+
+    private static final String UPSERT_INCOME = """
+            INSERT INTO public.socks (color_id, cotton_part, quantity)
+            VALUES (:colorId, :cottonPart, :quantity)
+            ON CONFLICT (color_id, cotton_part) DO UPDATE
+            SET quantity = socks.quantity + EXCLUDED.quantity
+            """;
+
+    private static final String DECREMENT_QUANTITY = """
+            UPDATE public.socks
+            SET quantity = quantity - :quantity
+            WHERE color_id = :colorId AND cotton_part = :cottonPart AND quantity >= :quantity
+            """;
+
+    /**
+     * Color id matching no sock, used for colors missing from the dictionary. Dictionary ids start at 1.
+     */
+    private static final int NO_COLOR = 0;
+
+    private static final RowMapper<Sock> SOCK_ROW_MAPPER = (rs, rowNum) -> new Sock(
+            rs.getLong("id"),
+            rs.getString("color"),
+            rs.getDouble("cotton_part"),
+            rs.getInt("quantity")
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SockStripes sockStripes;
+    private final ColorDictionary colorDictionary;
+
+    @Override
+    public Sock upsertIncome(String color, Double cottonPart, Integer quantity) {
+        Long stripedId = sockStripes.stripedId(color, cottonPart);
+        if (stripedId != null) {
+            sockStripes.income(stripedId, quantity);
+            return jdbcTemplate.queryForObject(
+                    "SELECT id, color, cotton_part, quantity FROM " + SockQuery.SOCKS_INVENTORY + " WHERE id = :id",
+                    Map.of("id", stripedId),
+                    SOCK_ROW_MAPPER
+            );
+        }
+        return jdbcTemplate.queryForObject(
+                UPSERT_INCOME + "RETURNING id, CAST(:color AS VARCHAR) AS color, cotton_part, quantity",
+                skuParameters(colorDictionary.getOrCreateId(color), cottonPart, quantity)
+                        .addValue("color", ColorDictionary.normalize(color)),
+                SOCK_ROW_MAPPER
+        );
+    }
+
+    @Override
+    public void upsertIncomeAll(Collection<Sock> socks) {
+        List<Sock> unstriped = new ArrayList<>(socks.size());
+        for (Sock sock : socks) {
+            Long stripedId = sockStripes.stripedId(sock.getColor(), sock.getCottonPart());
+            if (stripedId == null) {
+                unstriped.add(sock);
+            } else if (sock.getQuantity() >= 0) {
+                sockStripes.income(stripedId, sock.getQuantity());
+            } else if (sockStripes.decrement(stripedId, -sock.getQuantity()) == 0) {
+                throw new IllegalStateException("Striped sock " + stripedId + " cannot cover a delta of " + sock.getQuantity());
+            }
+        }
+        if (unstriped.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> colorIds = colorDictionary.getOrCreateIds(unstriped.stream().map(Sock::getColor).toList());
+        SqlParameterSource[] batch = unstriped.stream()
+                .map(sock -> skuParameters(colorIds.get(ColorDictionary.normalize(sock.getColor())),
+                        sock.getCottonPart(), sock.getQuantity()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPSERT_INCOME, batch);
+    }
+
+    @Override
+    public int decrementQuantity(String color, Double cottonPart, Integer quantity) {
+        Long stripedId = sockStripes.stripedId(color, cottonPart);
+        if (stripedId != null) {
+            return sockStripes.decrement(stripedId, quantity);
+        }
+        return jdbcTemplate.update(DECREMENT_QUANTITY, skuParameters(colorId(color), cottonPart, quantity));
+    }
+
+    @Override
+    public int[] decrementQuantityAll(List<Sock> socks) {
+        int[] updated = new int[socks.size()];
+        List<Integer> unstriped = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            Sock sock = socks.get(i);
+            Long stripedId = sockStripes.stripedId(sock.getColor(), sock.getCottonPart());
+            if (stripedId == null) {
+                unstriped.add(i);
+            } else {
+                updated[i] = sockStripes.decrement(stripedId, sock.getQuantity());
+            }
+        }
+        if (unstriped.isEmpty()) {
+            return updated;
+        }
+        SqlParameterSource[] batch = unstriped.stream()
+                .map(socks::get)
+                .map(sock -> skuParameters(colorId(sock.getColor()), sock.getCottonPart(), sock.getQuantity()))
+                .toArray(SqlParameterSource[]::new);
+        int[] batchUpdated = jdbcTemplate.batchUpdate(DECREMENT_QUANTITY, batch);
+        for (int i = 0; i < batchUpdated.length; i++) {
+            updated[unstriped.get(i)] = batchUpdated[i];
+        }
+        return updated;
+    }
+
+    @Override
+    public Integer findQuantity(String color, Double cottonPart) {
+        List<Integer> quantity = jdbcTemplate.queryForList(
+                "SELECT quantity FROM " + source() + " WHERE color_id = :colorId AND cotton_part = :cottonPart",
+                new MapSqlParameterSource().addValue("colorId", colorId(color)).addValue("cottonPart", cottonPart),
+                Integer.class
+        );
+        return quantity.isEmpty() ? null : quantity.get(0);
+    }
+
+    @Override
+    public boolean existsByColorAndCottonPart(String color, Double cottonPart) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM public.socks WHERE color_id = :colorId AND cotton_part = :cottonPart)",
+                new MapSqlParameterSource().addValue("colorId", colorId(color)).addValue("cottonPart", cottonPart),
+                Boolean.class
+        ));
+    }
+
+    @Override
+    public int getOrCreateColorId(String color) {
+        return colorDictionary.getOrCreateId(color);
+    }
+
+    @Override
+    public long drainStripes(long sockId) {
+        return sockStripes.drain(sockId);
+    }
+
+    @Override
+    public boolean isStriped(long sockId) {
+        return sockStripes.isStriped(sockId);
+    }
+
+    @Override
+    public List<Sock> findFilteredAndSorted(SockFilter filter, String sortBy) {
+        SockQuery query = filtered(SockQuery.selectSocks(source()), filter)
+                .orderBy(sortBy)
+                .build();
+        return jdbcTemplate.getJdbcOperations().query(query.getSql(), SOCK_ROW_MAPPER, query.getParameters().toArray());
+    }
+
+    @Override
+    public List<Sock> findPage(SockFilter filter, String sortBy, Object afterSortValue, Long afterId, int limit) {
+        SockQuery query = filtered(SockQuery.selectSocks(source()), filter)
+                .orderBy(sortBy)
+                .after(afterSortValue, afterId)
+                .limit(limit)
+                .build();
+        return jdbcTemplate.getJdbcOperations().query(query.getSql(), SOCK_ROW_MAPPER, query.getParameters().toArray());
+    }
+
+    @Override
+    public void streamFilteredAndSorted(SockFilter filter, String sortBy, int fetchSize, Consumer<Sock> consumer) {
+        SockQuery query = filtered(SockQuery.selectSocks(source()), filter)
+                .orderBy(sortBy)
+                .build();
+        PreparedStatementCreator statement = connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(
+                    query.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(query.getParameters().toArray()).setValues(preparedStatement);
+            return preparedStatement;
+        };
+        jdbcTemplate.getJdbcOperations().query(statement, (RowCallbackHandler) rs ->
+                consumer.accept(SOCK_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public long sumQuantity(SockFilter filter) {
+        SockQuery query = filtered(SockQuery.sumQuantity(source()), filter).build();
+        Long sum = jdbcTemplate.getJdbcOperations().queryForObject(query.getSql(), Long.class, query.getParameters().toArray());
+        return sum == null ? 0 : sum;
+    }
+
+    @Override
+    public void startSnapshot() {
+        jdbcTemplate.queryForObject("SELECT 1", Map.of(), Integer.class);
+    }
+
+    private String source() {
+        return sockStripes.isEnabled() ? SockQuery.SOCKS_INVENTORY : SockQuery.SOCKS;
+    }
+
+    private SockQuery.Builder filtered(SockQuery.Builder builder, SockFilter filter) {
+        return builder
+                .colorId(filter.color() == null ? null : colorId(filter.color()))
+                .cottonPart(filter.operation(), filter.cottonPart())
+                .cottonPartBetween(filter.cottonPartMin(), filter.cottonPartMax());
+    }
+
+    private int colorId(String color) {
+        Integer colorId = colorDictionary.findId(color);
+        return colorId == null ? NO_COLOR : colorId;
+    }
+
+    private MapSqlParameterSource skuParameters(int colorId, Double cottonPart, Integer quantity) {
+        return new MapSqlParameterSource()
+                .addValue("colorId", colorId)
+                .addValue("cottonPart", cottonPart)
+                .addValue("quantity", quantity);
+    }
+}
@@ -0,0 +1,10 @@
+package com.tricketteh.SocksREST.repository;
+
+public interface SockQuantity {
+
+    String getColor();
+
+    Double getCottonPart();
+
+    Long getQuantity();
+}
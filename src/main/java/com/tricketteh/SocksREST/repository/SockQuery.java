@@ -0,0 +1,217 @@
+package com.tricketteh.SocksREST.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL over the socks table with positional parameters. Only the predicates that were actually supplied are
+ * emitted and rows are ordered directly by the sort column, so PostgreSQL can plan each combination against
+ * the matching index instead of one generic catch-all plan. Colors are filtered by their dictionary id.
+ * <p>
+ * Socks store only the id of their color, so rows sorted by color walk the {@code colors} table in name order and
+ * read the socks of each color from the {@code (color_id, id)} index, instead of sorting every row by name.
+ */
+public final class SockQuery {
+
+    private final String sql;
+    private final List<Object> parameters;
+
+    private SockQuery(String sql, List<Object> parameters) {
+        this.sql = sql;
+        this.parameters = List.copyOf(parameters);
+    }
+
+    /**
+     * Socks with the name of their color, see {@link ColorDictionary}.
+     */
+    public static final String SOCKS = "public.socks_with_color";
+
+    /**
+     * Socks with the quantity of their stripes added, see {@link SockStripes}.
+     */
+    public static final String SOCKS_INVENTORY = "public.socks_inventory";
+
+    public static Builder selectSocks() {
+        return selectSocks(SOCKS);
+    }
+
+    public static Builder selectSocks(String source) {
+        return new Builder("SELECT id, color, cotton_part, quantity FROM " + source, source);
+    }
+
+    public static Builder sumQuantity() {
+        return sumQuantity(SOCKS);
+    }
+
+    public static Builder sumQuantity(String source) {
+        return new Builder("SELECT COALESCE(SUM(quantity), 0) FROM " + source, null);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + parameters;
+    }
+
+    public static final class Builder {
+
+        private final String select;
+        private final String rowSource;
+        private final List<String> predicates = new ArrayList<>();
+        private final List<Object> parameters = new ArrayList<>();
+        private Integer colorId;
+        private String sortColumn;
+        private Object afterSortValue;
+        private Long afterId;
+        private Integer limit;
+
+        /**
+         * @param rowSource relation of the selected rows, {@code null} when the query aggregates them
+         */
+        private Builder(String select, String rowSource) {
+            this.select = select;
+            this.rowSource = rowSource;
+        }
+
+        public Builder colorId(Integer colorId) {
+            this.colorId = colorId;
+            return this;
+        }
+
+        public Builder cottonPart(String operation, Double cottonPart) {
+            if (operation == null || cottonPart == null) {
+                return this;
+            }
+            switch (operation) {
+                case "moreThan" -> predicate("cotton_part > ?", cottonPart);
+                case "lessThan" -> predicate("cotton_part < ?", cottonPart);
+                case "equal" -> predicate("cotton_part = ?", cottonPart);
+                default -> throw new IllegalArgumentException("Incorrect operation: " + operation);
+            }
+            return this;
+        }
+
+        public Builder cottonPartBetween(Double cottonPartMin, Double cottonPartMax) {
+            if (cottonPartMin != null && cottonPartMax != null) {
+                predicate("cotton_part BETWEEN ? AND ?", cottonPartMin, cottonPartMax);
+            } else if (cottonPartMin != null) {
+                predicate("cotton_part >= ?", cottonPartMin);
+            } else if (cottonPartMax != null) {
+                predicate("cotton_part <= ?", cottonPartMax);
+            }
+            return this;
+        }
+
+        public Builder orderBy(String sortBy) {
+            this.sortColumn = "cottonPart".equals(sortBy) ? "cotton_part" : "color";
+            return this;
+        }
+
+        /**
+         * Restricts the result to rows after the given keyset position of the current sort order.
+         */
+        public Builder after(Object sortValue, Long id) {
+            if (sortColumn == null) {
+                throw new IllegalStateException("Keyset position requires a sort order");
+            }
+            this.afterSortValue = sortValue;
+            this.afterId = id;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public SockQuery build() {
+            if ("color".equals(sortColumn) && rowSource != null) {
+                return buildByColor();
+            }
+            List<String> conditions = new ArrayList<>();
+            List<Object> boundParameters = new ArrayList<>();
+            if (colorId != null) {
+                conditions.add("color_id = ?");
+                boundParameters.add(colorId);
+            }
+            conditions.addAll(predicates);
+            boundParameters.addAll(parameters);
+            if (afterId != null) {
+                conditions.add("(" + sortColumn + ", id) > (?, ?)");
+                boundParameters.add(afterSortValue);
+                boundParameters.add(afterId);
+            }
+
+            StringBuilder sql = new StringBuilder(select);
+            if (!conditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            if (sortColumn != null) {
+                sql.append(" ORDER BY ").append(sortColumn).append(", id");
+            }
+            if (limit != null) {
+                sql.append(" LIMIT ?");
+                boundParameters.add(limit);
+            }
+            return new SockQuery(sql.toString(), boundParameters);
+        }
+
+        /**
+         * Colors are read in name order and the socks of each color in id order, so both the keyset position and
+         * the limit apply while walking the indexes. The limit is repeated per color to stop each lateral scan early.
+         */
+        private SockQuery buildByColor() {
+            List<Object> boundParameters = new ArrayList<>(parameters);
+            StringBuilder rows = new StringBuilder("SELECT id, cotton_part, quantity FROM ")
+                    .append(rowSource)
+                    .append(" WHERE color_id = c.id");
+            for (String predicate : predicates) {
+                rows.append(" AND ").append(predicate);
+            }
+            if (afterId != null) {
+                rows.append(" AND (c.name > ? OR id > ?)");
+                boundParameters.add(afterSortValue);
+                boundParameters.add(afterId);
+            }
+            rows.append(" ORDER BY id");
+            if (limit != null) {
+                rows.append(" LIMIT ?");
+                boundParameters.add(limit);
+            }
+
+            List<String> colorConditions = new ArrayList<>();
+            if (colorId != null) {
+                colorConditions.add("c.id = ?");
+                boundParameters.add(colorId);
+            }
+            if (afterId != null) {
+                colorConditions.add("c.name >= ?");
+                boundParameters.add(afterSortValue);
+            }
+
+            StringBuilder sql = new StringBuilder("SELECT s.id, c.name AS color, s.cotton_part, s.quantity FROM public.colors c")
+                    .append(" CROSS JOIN LATERAL (").append(rows).append(") s");
+            if (!colorConditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", colorConditions));
+            }
+            sql.append(" ORDER BY c.name, s.id");
+            if (limit != null) {
+                sql.append(" LIMIT ?");
+                boundParameters.add(limit);
+            }
+            return new SockQuery(sql.toString(), boundParameters);
+        }
+
+        private void predicate(String predicate, Object... values) {
+            predicates.add(predicate);
+            parameters.addAll(List.of(values));
+        }
+    }
+}
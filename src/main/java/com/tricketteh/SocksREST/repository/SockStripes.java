@@ -0,0 +1,235 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in striping of hot socks. The quantity of a striped sock is its row quantity plus the quantities of its
+ * slot rows in {@code sock_stripes}; reads go through the {@code socks_inventory} view summing both. Income adds to
+ * a random slot and outcome takes from a random slot, then from the first slot with enough stock, so concurrent
+ * transactions mostly lock different rows. Only when no single slot can cover an outcome are all rows of the sock
+ * locked and drained in turn.
+ */
+@Repository
+public class SockStripes {
+
+    private static final Logger logger = LoggerFactory.getLogger(SockStripes.class);
+
+    private static final String ADD_TO_SLOT = """
+            UPDATE public.sock_stripes
+            SET quantity = quantity + :quantity
+            WHERE sock_id = :sockId AND slot = :slot
+            """;
+
+    private static final String TAKE_FROM_SLOT = """
+            UPDATE public.sock_stripes
+            SET quantity = quantity - :quantity
+            WHERE sock_id = :sockId AND slot = :slot AND quantity >= :quantity
+            """;
+
+    private static final String TAKE_FROM_FIRST_AVAILABLE_SLOT = """
+            UPDATE public.sock_stripes
+            SET quantity = quantity - :quantity
+            WHERE sock_id = :sockId AND quantity >= :quantity AND slot = (
+                SELECT slot
+                FROM public.sock_stripes
+                WHERE sock_id = :sockId AND quantity >= :quantity
+                ORDER BY slot
+                LIMIT 1 FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ColorDictionary colorDictionary;
+    private final SocksProperties.Stripes properties;
+    private final Map<StripedSock, Long> sockIds = new ConcurrentHashMap<>();
+
+    public SockStripes(NamedParameterJdbcTemplate jdbcTemplate, ColorDictionary colorDictionary,
+                       PlatformTransactionManager transactionManager, SocksProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.colorDictionary = colorDictionary;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties.getStripes();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Creates the slot rows of the configured socks and folds the slots of socks that are no longer striped back
+     * into their rows.
+     */
+    @PostConstruct
+    public void init() {
+        if (isEnabled() && properties.getCount() < 1) {
+            throw new IllegalArgumentException("socks.stripes.count must be at least 1");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (isEnabled()) {
+                properties.getSocks().forEach(sock -> sockIds.put(
+                        StripedSock.of(sock.getColor(), sock.getCottonPart()), prepare(sock.getColor(), sock.getCottonPart())));
+            }
+            foldUnconfigured();
+        });
+        if (!sockIds.isEmpty()) {
+            logger.info("Striping {} socks across {} slots", sockIds.size(), properties.getCount());
+        }
+    }
+
+    /**
+     * Returns whether the sock with the id is one of the configured striped socks.
+     */
+    public boolean isStriped(long sockId) {
+        return !sockIds.isEmpty() && sockIds.containsValue(sockId);
+    }
+
+    /**
+     * Returns the id of the sock when it is striped, {@code null} otherwise.
+     */
+    public Long stripedId(String color, double cottonPart) {
+        return sockIds.isEmpty() ? null : sockIds.get(StripedSock.of(color, cottonPart));
+    }
+
+    public void income(long sockId, int quantity) {
+        jdbcTemplate.update(ADD_TO_SLOT, slotParameters(sockId, randomSlot(), quantity));
+    }
+
+    /**
+     * Takes the quantity from the slots of a striped sock and returns the number of updated socks, 0 when the
+     * stock is insufficient. Must run in a transaction.
+     */
+    public int decrement(long sockId, int quantity) {
+        if (jdbcTemplate.update(TAKE_FROM_SLOT, slotParameters(sockId, randomSlot(), quantity)) == 1) {
+            return 1;
+        }
+        if (jdbcTemplate.update(TAKE_FROM_FIRST_AVAILABLE_SLOT, slotParameters(sockId, null, quantity)) == 1) {
+            return 1;
+        }
+        return decrementAcrossSlots(sockId, quantity);
+    }
+
+    /**
+     * Empties the slots of a sock and returns the quantity they held. Must run in a transaction. Locks the sock row
+     * before its slots, in the same order as {@link #decrement}, so a concurrent outcome cannot deadlock with it.
+     */
+    public long drain(long sockId) {
+        jdbcTemplate.queryForList("SELECT id FROM public.socks WHERE id = :sockId FOR UPDATE",
+                Map.of("sockId", sockId), Long.class);
+        List<Long> drained = jdbcTemplate.queryForList("""
+                UPDATE public.sock_stripes st
+                SET quantity = 0
+                FROM (SELECT slot, quantity FROM public.sock_stripes WHERE sock_id = :sockId FOR UPDATE) old
+                WHERE st.sock_id = :sockId AND st.slot = old.slot AND old.quantity > 0
+                RETURNING old.quantity::BIGINT
+                """, Map.of("sockId", sockId), Long.class);
+        return drained.stream().mapToLong(Long::longValue).sum();
+    }
+
+    private int decrementAcrossSlots(long sockId, int quantity) {
+        Map<String, Long> sockParameters = Map.of("sockId", sockId);
+        Integer base = jdbcTemplate.queryForObject(
+                "SELECT quantity FROM public.socks WHERE id = :sockId FOR UPDATE", sockParameters, Integer.class);
+        List<int[]> slots = jdbcTemplate.query(
+                "SELECT slot, quantity FROM public.sock_stripes WHERE sock_id = :sockId ORDER BY slot FOR UPDATE",
+                sockParameters, (rs, rowNum) -> new int[]{rs.getInt("slot"), rs.getInt("quantity")});
+
+        long available = base == null ? 0 : base;
+        for (int[] slot : slots) {
+            available += slot[1];
+        }
+        if (available < quantity) {
+            return 0;
+        }
+
+        int remaining = quantity;
+        int fromBase = Math.max(0, Math.min(base == null ? 0 : base, remaining));
+        if (fromBase > 0) {
+            jdbcTemplate.update("UPDATE public.socks SET quantity = quantity - :quantity WHERE id = :sockId",
+                    new MapSqlParameterSource("sockId", sockId).addValue("quantity", fromBase));
+            remaining -= fromBase;
+        }
+        for (int[] slot : slots) {
+            if (remaining == 0) {
+                break;
+            }
+            int fromSlot = Math.min(slot[1], remaining);
+            if (fromSlot > 0) {
+                jdbcTemplate.update(TAKE_FROM_SLOT, slotParameters(sockId, slot[0], fromSlot));
+                remaining -= fromSlot;
+            }
+        }
+        return 1;
+    }
+
+    private long prepare(String color, double cottonPart) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("colorId", colorDictionary.getOrCreateId(color))
+                .addValue("cottonPart", cottonPart);
+        jdbcTemplate.update("""
+                INSERT INTO public.socks (color_id, cotton_part, quantity)
+                VALUES (:colorId, :cottonPart, 0)
+                ON CONFLICT (color_id, cotton_part) DO NOTHING
+                """, parameters);
+        Long sockId = jdbcTemplate.queryForObject(
+                "SELECT id FROM public.socks WHERE color_id = :colorId AND cotton_part = :cottonPart", parameters, Long.class);
+
+        MapSqlParameterSource slotParameters = new MapSqlParameterSource()
+                .addValue("sockId", sockId)
+                .addValue("count", properties.getCount());
+        jdbcTemplate.update("""
+                INSERT INTO public.sock_stripes (sock_id, slot)
+                SELECT :sockId, slot
+                FROM generate_series(0, :count - 1) AS slot
+                ON CONFLICT DO NOTHING
+                """, slotParameters);
+        jdbcTemplate.update("""
+                UPDATE public.socks
+                SET quantity = quantity + (SELECT COALESCE(SUM(quantity), 0)
+                                           FROM public.sock_stripes
+                                           WHERE sock_id = :sockId AND slot >= :count)
+                WHERE id = :sockId
+                """, slotParameters);
+        jdbcTemplate.update("DELETE FROM public.sock_stripes WHERE sock_id = :sockId AND slot >= :count", slotParameters);
+        return sockId;
+    }
+
+    private void foldUnconfigured() {
+        String unconfigured = sockIds.isEmpty() ? "" : " WHERE sock_id NOT IN (:sockIds)";
+        Map<String, Object> parameters = Map.of("sockIds", List.copyOf(sockIds.values()));
+        jdbcTemplate.update("UPDATE public.socks s SET quantity = s.quantity + st.quantity"
+                + " FROM (SELECT sock_id, SUM(quantity) AS quantity FROM public.sock_stripes" + unconfigured
+                + " GROUP BY sock_id) st WHERE s.id = st.sock_id", parameters);
+        jdbcTemplate.update("DELETE FROM public.sock_stripes" + unconfigured, parameters);
+    }
+
+    private int randomSlot() {
+        return ThreadLocalRandom.current().nextInt(properties.getCount());
+    }
+
+    private MapSqlParameterSource slotParameters(long sockId, Integer slot, int quantity) {
+        return new MapSqlParameterSource()
+                .addValue("sockId", sockId)
+                .addValue("slot", slot)
+                .addValue("quantity", quantity);
+    }
+
+    private record StripedSock(String color, double cottonPart) {
+
+        private static StripedSock of(String color, double cottonPart) {
+            return new StripedSock(ColorDictionary.normalize(color), cottonPart);
+        }
+    }
+}
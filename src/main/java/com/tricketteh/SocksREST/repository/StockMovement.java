@@ -0,0 +1,11 @@
+package com.tricketteh.SocksREST.repository;
+
+import java.time.Instant;
+
+/**
+ * One ledger entry. Entries are only appended; {@code color} and {@code cottonPart} are those of the sock
+ * after the movement.
+ */
+public record StockMovement(Long id, Long sockId, StockMovementType type, String color, double cottonPart,
+                            long delta, Instant createdAt) {
+}
@@ -0,0 +1,183 @@
+package com.tricketteh.SocksREST.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only ledger of stock movements, range partitioned by month on {@code created_at}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockMovementRepository {
+
+    public static final String PARTITION_PREFIX = "stock_movements_";
+    public static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String INSERT_BY_ID = """
+            INSERT INTO public.stock_movements (sock_id, movement_type, color_id, cotton_part, delta)
+            VALUES (:sockId, :type, :colorId, :cottonPart, :delta)
+            """;
+
+    private static final String INSERT_BY_SOCK = """
+            INSERT INTO public.stock_movements (sock_id, movement_type, color_id, cotton_part, delta)
+            SELECT id, :type, color_id, cotton_part, :delta
+            FROM public.socks
+            WHERE color_id = :colorId AND cotton_part = :cottonPart
+            """;
+
+    private static final RowMapper<StockMovement> STOCK_MOVEMENT_ROW_MAPPER = (rs, rowNum) -> new StockMovement(
+            rs.getLong("id"),
+            rs.getLong("sock_id"),
+            StockMovementType.valueOf(rs.getString("movement_type")),
+            rs.getString("color"),
+            rs.getDouble("cotton_part"),
+            rs.getLong("delta"),
+            rs.getTimestamp("created_at").toInstant()
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ColorDictionary colorDictionary;
+
+    /**
+     * Appends movements as JDBC batches. Movements without a sock id are attached to the sock with their color
+     * and cotton part.
+     */
+    public void insertAll(Collection<StockMovement> movements) {
+        Map<String, Integer> colorIds = colorDictionary.getOrCreateIds(movements.stream().map(StockMovement::color).toList());
+        SqlParameterSource[] byId = movements.stream()
+                .filter(movement -> movement.sockId() != null)
+                .map(movement -> parameters(movement, colorIds))
+                .toArray(SqlParameterSource[]::new);
+        SqlParameterSource[] bySock = movements.stream()
+                .filter(movement -> movement.sockId() == null)
+                .map(movement -> parameters(movement, colorIds))
+                .toArray(SqlParameterSource[]::new);
+        if (byId.length > 0) {
+            jdbcTemplate.batchUpdate(INSERT_BY_ID, byId);
+        }
+        if (bySock.length > 0) {
+            jdbcTemplate.batchUpdate(INSERT_BY_SOCK, bySock);
+        }
+    }
+
+    /**
+     * Movements of a sock created in {@code [from, to)} ordered by time, starting after the given keyset position.
+     */
+    public List<StockMovement> findHistory(long sockId, Instant from, Instant to, Instant afterCreatedAt, Long afterId, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("sockId", sockId)
+                .addValue("from", Timestamp.from(from))
+                .addValue("to", Timestamp.from(to))
+                .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("""
+                SELECT m.id, m.sock_id, m.movement_type, c.name AS color, m.cotton_part, m.delta, m.created_at
+                FROM public.stock_movements m
+                         JOIN public.colors c ON c.id = m.color_id
+                WHERE m.sock_id = :sockId AND m.created_at >= :from AND m.created_at < :to
+                """);
+        if (afterCreatedAt != null && afterId != null) {
+            sql.append("AND (m.created_at, m.id) > (:afterCreatedAt, :afterId)\n");
+            parameters.addValue("afterCreatedAt", Timestamp.from(afterCreatedAt)).addValue("afterId", afterId);
+        }
+        sql.append("ORDER BY m.created_at, m.id\nLIMIT :limit");
+        return jdbcTemplate.query(sql.toString(), parameters, STOCK_MOVEMENT_ROW_MAPPER);
+    }
+
+    /**
+     * Returns the time before which no movement can still be committed. Movements are stamped with the start of
+     * their transaction, so a transaction still running may later add rows older than newer committed ones; rows
+     * before the start of the oldest running transaction are final. Only sessions the current role may inspect are
+     * considered, which covers every writer of this service sharing its role.
+     */
+    public Instant findSettledBefore() {
+        Timestamp settled = jdbcTemplate.queryForObject("""
+                SELECT least(now(), min(xact_start))
+                FROM pg_stat_activity
+                WHERE datname = current_database()
+                """, Map.of(), Timestamp.class);
+        return settled.toInstant();
+    }
+
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT child.relname
+                FROM pg_inherits
+                         JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                         JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                WHERE parent.relname = 'stock_movements'
+                """, Map.of(), String.class);
+    }
+
+    /**
+     * Creates the partition of a month unless it exists. Movements of that month already in the default partition
+     * would make a plain {@code PARTITION OF} fail, so the partition is built as a table, those rows are moved into
+     * it and it is attached. The default partition is locked before the existence is checked again, which keeps
+     * concurrent instances from creating the same month. Returns the number of movements moved, or -1 when the
+     * partition existed.
+     */
+    @Transactional
+    public int createPartition(YearMonth month) {
+        String partition = "public." + partitionName(month);
+        String from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        JdbcOperations jdbcOperations = jdbcTemplate.getJdbcOperations();
+        if (partitionExists(partition)) {
+            return -1;
+        }
+        jdbcOperations.execute("LOCK TABLE public.stock_movements_default IN ACCESS EXCLUSIVE MODE");
+        if (partitionExists(partition)) {
+            return -1;
+        }
+        jdbcOperations.execute("CREATE TABLE " + partition
+                + " (LIKE public.stock_movements INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcOperations.update("""
+                WITH moved AS (
+                    DELETE FROM public.stock_movements_default
+                    WHERE created_at >= ?::timestamptz AND created_at < ?::timestamptz
+                    RETURNING id, sock_id, movement_type, color_id, cotton_part, delta, created_at)
+                INSERT INTO %s (id, sock_id, movement_type, color_id, cotton_part, delta, created_at)
+                SELECT id, sock_id, movement_type, color_id, cotton_part, delta, created_at
+                FROM moved
+                """.formatted(partition), from, to);
+        jdbcOperations.execute("ALTER TABLE public.stock_movements ATTACH PARTITION " + partition
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return moved;
+    }
+
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.getJdbcOperations().execute("DROP TABLE IF EXISTS public." + partitionName(month));
+    }
+
+    private boolean partitionExists(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.getJdbcOperations()
+                .queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_MONTH);
+    }
+
+    private SqlParameterSource parameters(StockMovement movement, Map<String, Integer> colorIds) {
+        return new MapSqlParameterSource()
+                .addValue("sockId", movement.sockId())
+                .addValue("type", movement.type().name())
+                .addValue("colorId", colorIds.get(ColorDictionary.normalize(movement.color())))
+                .addValue("cottonPart", movement.cottonPart())
+                .addValue("delta", movement.delta());
+    }
+}
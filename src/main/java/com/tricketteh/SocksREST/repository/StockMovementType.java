@@ -0,0 +1,12 @@
+package com.tricketteh.SocksREST.repository;
+
+public enum StockMovementType {
+    INCOME,
+    OUTCOME,
+    UPDATE,
+    IMPORT,
+    /**
+     * Net income and outcome of one sock written by a write-behind flush.
+     */
+    WRITE_BEHIND
+}
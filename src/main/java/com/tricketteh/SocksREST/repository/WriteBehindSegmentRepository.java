@@ -0,0 +1,83 @@
+package com.tricketteh.SocksREST.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which write-behind journal segments were applied to the socks table. A segment is marked in the same
+ * transaction that applies it, so a segment file left behind by a crash is never applied twice. Deltas of a batch
+ * that could not be written are parked here, in the transaction marking their segments, and each one leaves the
+ * table in the transaction writing it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WriteBehindSegmentRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void markFlushed(Collection<String> segmentIds) {
+        SqlParameterSource[] batch = segmentIds.stream()
+                .map(segmentId -> new MapSqlParameterSource("segmentId", segmentId))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO public.socks_write_behind_segments (segment_id) VALUES (:segmentId)", batch);
+    }
+
+    public Set<String> findFlushed(Collection<String> segmentIds) {
+        if (segmentIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT segment_id FROM public.socks_write_behind_segments WHERE segment_id IN (:segmentIds)",
+                Map.of("segmentIds", segmentIds),
+                String.class
+        ));
+    }
+
+    public void park(Collection<ParkedDelta> deltas) {
+        SqlParameterSource[] batch = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("color", delta.color())
+                        .addValue("cottonPart", delta.cottonPart())
+                        .addValue("delta", delta.delta()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO public.socks_write_behind_parked (color, cotton_part, delta) VALUES (:color, :cottonPart, :delta)",
+                batch);
+    }
+
+    /**
+     * Returns the parked deltas still to be written, those that have not failed on their own yet.
+     */
+    public List<ParkedDelta> findParked() {
+        return jdbcTemplate.query(
+                "SELECT id, color, cotton_part, delta FROM public.socks_write_behind_parked WHERE failure IS NULL ORDER BY id",
+                (rs, rowNum) -> new ParkedDelta(rs.getLong("id"), rs.getString("color"), rs.getDouble("cotton_part"),
+                        rs.getLong("delta")));
+    }
+
+    public void unpark(long id) {
+        jdbcTemplate.update("DELETE FROM public.socks_write_behind_parked WHERE id = :id", Map.of("id", id));
+    }
+
+    public void fail(long id, String failure) {
+        jdbcTemplate.update("UPDATE public.socks_write_behind_parked SET failure = :failure WHERE id = :id",
+                Map.of("id", id, "failure", failure));
+    }
+
+    public void delete(Collection<String> segmentIds) {
+        if (segmentIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM public.socks_write_behind_segments WHERE segment_id IN (:segmentIds)",
+                Map.of("segmentIds", segmentIds));
+    }
+}
@@ -0,0 +1,25 @@
+package com.tricketteh.SocksREST.service;
+
+import java.util.Arrays;
+
+public enum BatchFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    BatchFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static BatchFormat ofMediaType(String type) {
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.equalsIgnoreCase(type))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported batch format: " + type));
+    }
+}
@@ -0,0 +1,145 @@
+package com.tricketteh.SocksREST.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the rows of a socks batch as {@code color, cottonPart, quantity} fields, so every format is checked by
+ * {@link SockRowValidator}. Input is decoded as UTF-8, a line with malformed bytes is rejected like an invalid row.
+ */
+abstract class BatchRowReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static BatchRowReader open(InputStream inputStream, BatchFormat format) {
+        BufferedReader reader = new BufferedReader(new Utf8LineReader(inputStream), BUFFER_SIZE);
+        return format == BatchFormat.NDJSON ? new NdjsonRowReader(reader) : new CsvRowReader(reader);
+    }
+
+    /**
+     * Returns the fields of the next row or {@code null} at the end of the input. A row that cannot be read as
+     * fields is reported with {@link IllegalArgumentException}, and reading may go on with the next row.
+     */
+    abstract String[] readNext() throws IOException;
+
+    /**
+     * Line number of the row last read, as used in error messages.
+     */
+    abstract int lineNumber();
+
+    abstract boolean isHeader(String[] row);
+
+    private static final class CsvRowReader extends BatchRowReader {
+
+        private final CSVReader csvReader;
+        private int lineNumber;
+
+        private CsvRowReader(BufferedReader reader) {
+            this.csvReader = new CSVReader(reader);
+        }
+
+        @Override
+        String[] readNext() throws IOException {
+            try {
+                String[] row = csvReader.readNext();
+                if (row != null) {
+                    lineNumber++;
+                }
+                return row;
+            } catch (IllegalArgumentException ex) {
+                // The line is not valid UTF-8; it still counts, so later lines keep their numbers.
+                lineNumber++;
+                throw ex;
+            } catch (CsvValidationException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        int lineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        boolean isHeader(String[] row) {
+            return lineNumber == 1 && SockRowValidator.isHeaderRow(row);
+        }
+
+        @Override
+        public void close() throws IOException {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * One JSON object per line with {@code color}, {@code cottonPart} and {@code quantity}. Blank lines are skipped.
+     */
+    private static final class NdjsonRowReader extends BatchRowReader {
+
+        private static final ObjectReader JSON = new ObjectMapper().reader();
+
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        private NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        String[] readNext() throws IOException {
+            String line;
+            do {
+                try {
+                    line = reader.readLine();
+                } catch (IllegalArgumentException ex) {
+                    lineNumber++;
+                    throw ex;
+                }
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+
+            JsonNode node;
+            try {
+                node = JSON.readTree(line);
+            } catch (JsonProcessingException ex) {
+                node = null;
+            }
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("String " + lineNumber + ": Incorrect JSON object.");
+            }
+            return new String[]{field(node, "color"), field(node, "cottonPart"), field(node, "quantity")};
+        }
+
+        @Override
+        int lineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        boolean isHeader(String[] row) {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static String field(JsonNode node, String name) {
+            JsonNode value = node.get(name);
+            return value == null || !value.isValueNode() || value.isNull() ? "" : value.asText();
+        }
+    }
+}
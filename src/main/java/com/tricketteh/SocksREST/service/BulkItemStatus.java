@@ -0,0 +1,8 @@
+package com.tricketteh.SocksREST.service;
+
+public enum BulkItemStatus {
+    APPLIED,
+    INVALID,
+    NOT_FOUND,
+    INSUFFICIENT_STOCK
+}
@@ -0,0 +1,174 @@
+package com.tricketteh.SocksREST.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Quantities of one color keyed by cotton part: a sorted key array with a Fenwick tree over it.
+ * Point updates and range sums are O(log n); reads are optimistic and do not allocate.
+ */
+final class CottonPartTree {
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Snapshot snapshot;
+
+    CottonPartTree() {
+        this(new double[0], new long[0]);
+    }
+
+    CottonPartTree(double[] cottonParts, long[] quantities) {
+        this.snapshot = Snapshot.of(cottonParts, quantities);
+    }
+
+    void add(double cottonPart, long delta) {
+        long stamp = lock.writeLock();
+        try {
+            Snapshot current = snapshot;
+            int index = Arrays.binarySearch(current.keys, cottonPart);
+            if (index >= 0) {
+                current.add(index, delta);
+            } else {
+                snapshot = current.insert(-index - 1, cottonPart, delta);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sums quantities of cotton parts matching the operation and the inclusive [cottonPartMin, cottonPartMax] range.
+     * Null arguments do not restrict the sum.
+     */
+    long sum(String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax) {
+        long stamp = lock.tryOptimisticRead();
+        long result = snapshot.sum(operation, cottonPart, cottonPartMin, cottonPartMax);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = snapshot.sum(operation, cottonPart, cottonPartMin, cottonPartMax);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    Map<Double, Long> quantities() {
+        long stamp = lock.readLock();
+        try {
+            Snapshot current = snapshot;
+            Map<Double, Long> quantities = new LinkedHashMap<>();
+            for (int i = 0; i < current.keys.length; i++) {
+                quantities.put(current.keys[i], current.values[i]);
+            }
+            return quantities;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final double[] keys;
+        private final long[] values;
+        private final long[] fenwick;
+
+        private Snapshot(double[] keys, long[] values, long[] fenwick) {
+            this.keys = keys;
+            this.values = values;
+            this.fenwick = fenwick;
+        }
+
+        static Snapshot of(double[] keys, long[] values) {
+            long[] fenwick = new long[keys.length + 1];
+            for (int i = 1; i <= keys.length; i++) {
+                fenwick[i] += values[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= keys.length) {
+                    fenwick[parent] += fenwick[i];
+                }
+            }
+            return new Snapshot(keys, values, fenwick);
+        }
+
+        void add(int index, long delta) {
+            values[index] += delta;
+            for (int i = index + 1; i < fenwick.length; i += i & -i) {
+                fenwick[i] += delta;
+            }
+        }
+
+        Snapshot insert(int index, double key, long value) {
+            double[] newKeys = new double[keys.length + 1];
+            long[] newValues = new long[values.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(values, 0, newValues, 0, index);
+            newKeys[index] = key;
+            newValues[index] = value;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(values, index, newValues, index + 1, values.length - index);
+            return of(newKeys, newValues);
+        }
+
+        long sum(String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax) {
+            int from = 0;
+            int to = keys.length;
+            if (operation != null && cottonPart != null) {
+                switch (operation) {
+                    case "moreThan" -> from = Math.max(from, upperBound(cottonPart));
+                    case "lessThan" -> to = Math.min(to, lowerBound(cottonPart));
+                    case "equal" -> {
+                        from = Math.max(from, lowerBound(cottonPart));
+                        to = Math.min(to, upperBound(cottonPart));
+                    }
+                    default -> throw new IllegalArgumentException("Incorrect operation: " + operation);
+                }
+            }
+            if (cottonPartMin != null) {
+                from = Math.max(from, lowerBound(cottonPartMin));
+            }
+            if (cottonPartMax != null) {
+                to = Math.min(to, upperBound(cottonPartMax));
+            }
+            return to > from ? prefix(to) - prefix(from) : 0;
+        }
+
+        private long prefix(int count) {
+            long sum = 0;
+            for (int i = count; i > 0; i -= i & -i) {
+                sum += fenwick[i];
+            }
+            return sum;
+        }
+
+        private int lowerBound(double key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int upperBound(double key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] <= key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.ImportJobDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class DefaultImportJobService implements ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultImportJobService.class);
+
+    private final SockService sockService;
+    private final SocksProperties.Batch batchProperties;
+    private final ExecutorService executor;
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    public DefaultImportJobService(SockService sockService, SocksProperties properties, Environment environment) {
+        this(sockService, properties, newExecutor(properties.getBatch(), environment));
+    }
+
+    DefaultImportJobService(SockService sockService, SocksProperties properties, ExecutorService executor) {
+        this.sockService = sockService;
+        this.batchProperties = properties.getBatch();
+        this.executor = executor;
+    }
+
+    @Override
+    public ImportJobDTO submit(MultipartFile file) throws IOException {
+        logger.info("Submitting CSV import job");
+        if (file.isEmpty()) {
+            logger.error("Uploaded file is empty");
+            throw new IllegalArgumentException("File is empty. Please load a correct file");
+        }
+
+        Path spooled = ImportFiles.spool(file, batchProperties.getSpoolDirectory());
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), spooled);
+        try {
+            register(job);
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("CSV import job rejected: {}", ex.getMessage());
+            synchronized (jobs) {
+                jobs.remove(job.getId());
+            }
+            ImportFiles.delete(spooled);
+            throw ex;
+        }
+        logger.info("CSV import job {} queued", job.getId());
+        return toDTO(job);
+    }
+
+    @Override
+    public ImportJobDTO getJob(String jobId) {
+        ImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            throw new NoSuchElementException("Import job " + jobId + " not found");
+        }
+        return toDTO(job);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void register(ImportJob job) {
+        synchronized (jobs) {
+            Iterator<ImportJob> iterator = jobs.values().iterator();
+            while (jobs.size() >= batchProperties.getMaxJobs() && iterator.hasNext()) {
+                if (iterator.next().getStatus().isFinished()) {
+                    iterator.remove();
+                }
+            }
+            if (jobs.size() >= batchProperties.getMaxJobs()) {
+                throw new RejectedExecutionException("Too many import jobs in progress");
+            }
+            jobs.put(job.getId(), job);
+        }
+    }
+
+    private void run(ImportJob job) {
+        logger.info("Running CSV import job {}", job.getId());
+        job.start();
+        try {
+            sockService.loadCsvFile(job.getFile(), job.getProgress());
+            job.complete();
+            logger.info("CSV import job {} completed", job.getId());
+        } catch (Exception ex) {
+            if (ex instanceof IllegalArgumentException && job.getProgress().hasErrors()) {
+                logger.warn("CSV import job {} rejected the file", job.getId());
+                job.fail("File contains " + job.getProgress().getErrorCount() + " incorrect rows, nothing was saved");
+            } else {
+                logger.error("CSV import job {} failed", job.getId(), ex);
+                job.fail("Import failed, nothing was saved: " + ex.getMessage());
+            }
+        } finally {
+            ImportFiles.delete(job.getFile());
+        }
+    }
+
+    private static ExecutorService newExecutor(SocksProperties.Batch batchProperties, Environment environment) {
+        // Virtual threads keep the job limit and queue, only the threads waiting on the database become cheap.
+        ThreadFactory threadFactory = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("socks-import-", 1).factory()
+                : Thread.ofPlatform().name("socks-import-", 1).factory();
+        return new ThreadPoolExecutor(
+                batchProperties.getJobThreads(),
+                batchProperties.getJobThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchProperties.getJobQueueCapacity()),
+                threadFactory
+        );
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        ImportProgress progress = job.getProgress();
+        return new ImportJobDTO(
+                job.getId(),
+                job.getStatus(),
+                progress.getRowsParsed(),
+                progress.getRowsPersisted(),
+                progress.getRowsPerSecond(),
+                progress.getErrorCount(),
+                progress.getErrors(),
+                job.getFailure(),
+                job.getSubmittedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
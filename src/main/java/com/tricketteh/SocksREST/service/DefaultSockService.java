@@ -1,23 +1,42 @@
 package com.tricketteh.SocksREST.service;
 
-import com.opencsv.CSVReader;
+import com.tricketteh.SocksREST.config.CacheConfig;
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.BulkItemResultDTO;
+import com.tricketteh.SocksREST.dto.BulkResultDTO;
 import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.dto.SocksPageDTO;
+import com.tricketteh.SocksREST.dto.StockMovementPageDTO;
 import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.ColorDictionary;
+import com.tricketteh.SocksREST.repository.SockFilter;
 import com.tricketteh.SocksREST.repository.SockRepository;
+import com.tricketteh.SocksREST.repository.StockMovement;
+import com.tricketteh.SocksREST.repository.StockMovementType;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -25,93 +44,307 @@ public class DefaultSockService implements SockService {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultSockService.class);
     private final SockRepository sockRepository;
+    private final SocksProperties properties;
+    private final InventoryChanges inventoryChanges;
+    private final InventoryIndex inventoryIndex;
+    private final SocksMetrics socksMetrics;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final StockLedger stockLedger;
+    private final ParallelCsvParser parallelCsvParser;
+    private final TransactionTemplate transactionTemplate;
 
+    // Income and outcome open their transaction themselves, so write-behind requests never borrow a connection.
     @Override
-    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "income"})
     public Sock socksIncome(SocksDTO socksDTO) {
         logger.info("Processing socks income: {}", socksDTO);
-        Sock sock = sockRepository.save(Sock.builder()
-                .id(null)
-                .color(socksDTO.getColor())
-                .cottonPart(socksDTO.getCottonPart())
-                .quantity(socksDTO.getQuantity())
-                .build());
+        if (writeBehindBuffer.isEnabled()) {
+            Sock sock = writeBehindBuffer.income(socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity());
+            logger.info("Socks income buffered: {}", sock);
+            return sock;
+        }
+        Sock sock = transactionTemplate.execute(status -> {
+            Sock saved = sockRepository.upsertIncome(socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity());
+            inventoryChanges.record(socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity());
+            stockLedger.record(StockMovementType.INCOME, saved.getId(), saved.getColor(), saved.getCottonPart(), socksDTO.getQuantity());
+            return saved;
+        });
         logger.info("Socks income processed successfully: {}", sock);
         return sock;
     }
 
     @Override
-    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "outcome"})
     public void socksOutcome(SocksDTO socksDTO) {
         logger.info("Processing socks outcome: {}", socksDTO);
         try {
-            Optional<Long> sockId = sockRepository.findIdByFields(socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity());
-            Sock sock = sockId.map(id -> sockRepository.findById(id).orElseThrow(NoSuchElementException::new))
-                    .orElseThrow(NoSuchElementException::new);
-
-            if (sock.getQuantity() > socksDTO.getQuantity()) {
-                sock.setQuantity(sock.getQuantity() - socksDTO.getQuantity());
-                logger.info("Socks outcome processed successfully. Remaining quantity: {}", sock.getQuantity());
+            BulkItemStatus status;
+            if (writeBehindBuffer.isEnabled()) {
+                status = writeBehindBuffer.outcome(socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity());
             } else {
+                status = transactionTemplate.execute(transaction -> decrement(socksDTO));
+            }
+
+            if (status == BulkItemStatus.NOT_FOUND) {
+                throw new NoSuchElementException("Socks with color " + socksDTO.getColor() + " and cotton part " + socksDTO.getCottonPart() + " not found");
+            }
+            if (status == BulkItemStatus.INSUFFICIENT_STOCK) {
+                socksMetrics.insufficientStock();
                 throw new IllegalArgumentException("Socks outcome quantity exceeds the available stock");
             }
+            logger.info("Socks outcome processed successfully: {}", socksDTO);
         } catch (Exception ex) {
             logger.error("Error processing socks outcome", ex);
             throw ex;
         }
     }
 
+    private BulkItemStatus decrement(SocksDTO socksDTO) {
+        if (sockRepository.decrementQuantity(socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity()) != 0) {
+            inventoryChanges.record(socksDTO.getColor(), socksDTO.getCottonPart(), -socksDTO.getQuantity());
+            stockLedger.record(StockMovementType.OUTCOME, null, socksDTO.getColor(), socksDTO.getCottonPart(), -socksDTO.getQuantity());
+            return BulkItemStatus.APPLIED;
+        }
+        if (!sockRepository.existsByColorAndCottonPart(socksDTO.getColor(), socksDTO.getCottonPart())) {
+            return BulkItemStatus.NOT_FOUND;
+        }
+        return BulkItemStatus.INSUFFICIENT_STOCK;
+    }
+
+    // Bulk requests go through the write-behind buffer like single ones, so its reservations cover every outcome.
+    @Override
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "income-bulk"})
+    public BulkResultDTO socksIncomeBulk(List<SocksDTO> items) {
+        logger.info("Processing bulk socks income: {} items", items == null ? 0 : items.size());
+        BulkItemResultDTO[] results = new BulkItemResultDTO[checkBulkSize(items)];
+        Map<SockKey, List<Integer>> groups = groupValidItems(items, results);
+
+        List<Sock> socks = new ArrayList<>(groups.size());
+        groups.forEach((key, indexes) -> socks.add(coalesce(key, indexes, items)));
+        if (writeBehindBuffer.isEnabled()) {
+            socks.forEach(sock -> writeBehindBuffer.income(sock.getColor(), sock.getCottonPart(), sock.getQuantity()));
+        } else if (!socks.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                sockRepository.upsertIncomeAll(socks);
+                stockLedger.recordAll(StockMovementType.INCOME, socks);
+                for (Sock sock : socks) {
+                    inventoryChanges.record(sock.getColor(), sock.getCottonPart(), sock.getQuantity());
+                }
+            });
+        }
+        groups.values().forEach(indexes -> indexes.forEach(index -> results[index] = applied(index)));
+
+        BulkResultDTO result = bulkResult(results);
+        logger.info("Bulk socks income processed: {} applied, {} rejected", result.getApplied(), result.getRejected());
+        return result;
+    }
+
+    @Override
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "outcome-bulk"})
+    public BulkResultDTO socksOutcomeBulk(List<SocksDTO> items) {
+        logger.info("Processing bulk socks outcome: {} items", items == null ? 0 : items.size());
+        BulkItemResultDTO[] results = new BulkItemResultDTO[checkBulkSize(items)];
+        Map<SockKey, List<Integer>> groups = groupValidItems(items, results);
+
+        if (writeBehindBuffer.isEnabled()) {
+            groups.values().forEach(indexes -> indexes.forEach(index -> {
+                SocksDTO item = items.get(index);
+                results[index] = itemResult(index, item,
+                        writeBehindBuffer.outcome(item.getColor(), item.getCottonPart(), item.getQuantity()));
+            }));
+        } else {
+            transactionTemplate.executeWithoutResult(status -> decrementAll(items, groups, results));
+        }
+
+        BulkResultDTO result = bulkResult(results);
+        logger.info("Bulk socks outcome processed: {} applied, {} rejected", result.getApplied(), result.getRejected());
+        return result;
+    }
+
+    private void decrementAll(List<SocksDTO> items, Map<SockKey, List<Integer>> groups, BulkItemResultDTO[] results) {
+        List<Map.Entry<SockKey, List<Integer>>> entries = new ArrayList<>(groups.entrySet());
+        List<Sock> socks = entries.stream()
+                .map(entry -> coalesce(entry.getKey(), entry.getValue(), items))
+                .toList();
+        int[] updated = socks.isEmpty() ? new int[0] : sockRepository.decrementQuantityAll(socks);
+
+        List<Sock> movements = new ArrayList<>(socks.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Sock sock = socks.get(i);
+            List<Integer> indexes = entries.get(i).getValue();
+            if (updated[i] != 0) {
+                inventoryChanges.record(sock.getColor(), sock.getCottonPart(), -sock.getQuantity());
+                movements.add(new Sock(null, sock.getColor(), sock.getCottonPart(), -sock.getQuantity()));
+                indexes.forEach(index -> results[index] = applied(index));
+            } else {
+                // The stock cannot cover the whole group: apply its items one by one so the ones that fit still pass.
+                for (int index : indexes) {
+                    results[index] = decrementItem(index, items.get(index), movements);
+                }
+            }
+        }
+        stockLedger.recordAll(StockMovementType.OUTCOME, movements);
+    }
+
     @Override
     @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "update"})
     public void update(Long id, SocksDTO socksDTO) {
         logger.info("Updating sock with ID: {}", id);
-        sockRepository.findById(id)
-                .ifPresentOrElse(sock -> {
-                    sock.setColor(socksDTO.getColor());
-                    sock.setQuantity(socksDTO.getQuantity());
-                    logger.info("Sock updated successfully: {}", sock);
-                }, () -> {
-                    logger.error("Sock with ID {} not found for update", id);
-                    throw new NoSuchElementException();
-                });
+        if (writeBehindBuffer.isEnabled()) {
+            // Setting the quantity would bypass the stock reserved for buffered outcomes.
+            throw new UnsupportedOperationException("Socks cannot be updated while write-behind is enabled");
+        }
+        Sock sock = sockRepository.findByIdForUpdate(id).orElseThrow(() -> {
+            logger.error("Sock with ID {} not found for update", id);
+            return new NoSuchElementException("Sock with ID " + id + " not found for update");
+        });
+
+        boolean moved = !new SockKey(sock.getColor(), sock.getCottonPart())
+                .equals(new SockKey(socksDTO.getColor(), socksDTO.getCottonPart()));
+        if (moved && sockRepository.isStriped(id)) {
+            throw new IllegalArgumentException("Color and cotton part of striped sock " + id
+                    + " cannot change, remove it from socks.stripes.socks first");
+        }
+        // Checked up front for a readable error; a concurrent income creating the row still fails on the unique key.
+        if (moved && sockRepository.existsByColorAndCottonPart(socksDTO.getColor(), socksDTO.getCottonPart())) {
+            throw new DuplicateKeyException("Socks with color " + socksDTO.getColor() + " and cotton part "
+                    + socksDTO.getCottonPart() + " already exist, update them instead");
+        }
+
+        // The new quantity replaces the stock held by stripes as well.
+        int previousQuantity = Math.toIntExact(sock.getQuantity() + sockRepository.drainStripes(id));
+        inventoryChanges.record(sock.getColor(), sock.getCottonPart(), -previousQuantity);
+        sock.setColorId(sockRepository.getOrCreateColorId(socksDTO.getColor()));
+        sock.setColor(ColorDictionary.normalize(socksDTO.getColor()));
+        sock.setCottonPart(socksDTO.getCottonPart());
+        sock.setQuantity(socksDTO.getQuantity());
+        sockRepository.save(sock);
+        inventoryChanges.record(sock.getColor(), sock.getCottonPart(), sock.getQuantity());
+        stockLedger.record(StockMovementType.UPDATE, id, sock.getColor(), sock.getCottonPart(), sock.getQuantity() - previousQuantity);
+        logger.info("Sock updated successfully: {}", sock);
     }
 
     @Override
-    public int getSocksCount(String color, String operation, Double cottonPart) {
-        logger.info("Getting socks count with filters - Color: {}, Operation: {}, CottonPart: {}", color, operation, cottonPart);
-        List<Sock> socks = sockRepository.findAll();
-        int count = socks.stream()
-                .filter(sock -> color == null || sock.getColor().equalsIgnoreCase(color))
-                .filter(sock -> {
-                    if (operation == null || cottonPart == null) return true;
-                    return switch (operation) {
-                        case "moreThan" -> sock.getCottonPart() > cottonPart;
-                        case "lessThan" -> sock.getCottonPart() < cottonPart;
-                        case "equal" -> sock.getCottonPart().equals(cottonPart);
-                        default -> throw new IllegalArgumentException("Incorrect operation: " + operation);
-                    };
-                })
-                .mapToInt(Sock::getQuantity)
-                .sum();
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.SOCKS_COUNT_CACHE, condition = "!@inventoryIndex.ready",
+            key = "{@inventoryVersion.current(), #color, #operation, #cottonPart, #cottonPartMin, #cottonPartMax}")
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "count"})
+    public int getSocksCount(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax) {
+        logger.info("Getting socks count with filters - Color: {}, Operation: {}, CottonPart: {}, CottonPartMin: {}, CottonPartMax: {}",
+                color, operation, cottonPart, cottonPartMin, cottonPartMax);
+        if (operation == null || cottonPart == null) {
+            operation = null;
+        } else if (!operation.equals("moreThan") && !operation.equals("lessThan") && !operation.equals("equal")) {
+            throw new IllegalArgumentException("Incorrect operation: " + operation);
+        }
+
+        long total = inventoryIndex.isReady()
+                ? inventoryIndex.sum(color, operation, cottonPart, cottonPartMin, cottonPartMax)
+                : sockRepository.sumQuantity(new SockFilter(color, operation, cottonPart, cottonPartMin, cottonPartMax));
+        int count = Math.toIntExact(total);
         logger.info("Total socks count: {}", count);
         return count;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.FILTERED_SOCKS_CACHE,
+            key = "{@inventoryVersion.current(), #color, #operation, #cottonPart, #cottonPartMin, #cottonPartMax, #sortBy}")
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "filter"})
     public List<Sock> getFilteredAndSortedSocks(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax, String sortBy) {
         logger.info("Getting filtered and sorted socks - Filters: Color={}, Operation={}, CottonPart={}, CottonPartMin={}, CottonPartMax={}, SortBy={}",
                 color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy);
 
-        if (sortBy == null || (!sortBy.equalsIgnoreCase("color") && !sortBy.equalsIgnoreCase("cottonPart"))) {
-            sortBy = "color";
+        List<Sock> result = sockRepository.findFilteredAndSorted(
+                new SockFilter(color, operation, cottonPart, cottonPartMin, cottonPartMax), normalizeSortBy(sortBy));
+        logger.info("Filtered and sorted socks retrieved: {} rows", result.size());
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "filter"})
+    public SocksPageDTO getSocksPage(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax,
+                                     String sortBy, String after, Integer limit) {
+        logger.info("Getting socks page - Filters: Color={}, Operation={}, CottonPart={}, CottonPartMin={}, CottonPartMax={}, SortBy={}, After={}, Limit={}",
+                color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy, after, limit);
+
+        sortBy = normalizeSortBy(sortBy);
+        int pageSize = pageSize(limit);
+
+        SockCursor cursor = after == null ? null : SockCursor.decode(after);
+        List<Sock> items = sockRepository.findPage(
+                new SockFilter(color, operation, cottonPart, cottonPartMin, cottonPartMax),
+                sortBy,
+                cursor == null ? null : cursor.sortValue(sortBy),
+                cursor == null ? null : cursor.id(),
+                pageSize
+        );
+
+        String nextCursor = items.size() < pageSize ? null : SockCursor.encode(items.get(items.size() - 1), sortBy);
+        logger.info("Socks page retrieved: {} rows", items.size());
+        return new SocksPageDTO(items, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "stream"})
+    public void streamFilteredAndSortedSocks(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax,
+                                             String sortBy, Consumer<Sock> consumer) {
+        logger.info("Streaming filtered and sorted socks - Filters: Color={}, Operation={}, CottonPart={}, CottonPartMin={}, CottonPartMax={}, SortBy={}",
+                color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy);
+
+        sockRepository.streamFilteredAndSorted(
+                new SockFilter(color, operation, cottonPart, cottonPartMin, cottonPartMax),
+                normalizeSortBy(sortBy),
+                properties.getQuery().getFetchSize(),
+                consumer
+        );
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "history"})
+    public StockMovementPageDTO getSockHistory(Long id, Instant from, Instant to, String after, Integer limit) {
+        logger.info("Getting history of sock with ID: {} - From={}, To={}, After={}, Limit={}", id, from, to, after, limit);
+        if (!sockRepository.existsById(id)) {
+            throw new NoSuchElementException("Sock with ID " + id + " not found");
         }
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(properties.getLedger().getHistoryWindow()) : from;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("History start must be before its end");
+        }
+        int pageSize = pageSize(limit);
 
-        List<Sock> result = sockRepository.findFilteredAndSorted(color, operation, cottonPart, cottonPartMin, cottonPartMax, sortBy);
-        logger.info("Filtered and sorted socks retrieved: {}", result);
-        return result;
+        // Movements carry the start of their transaction, so pages stop before the oldest one still running and a
+        // cursor never passes a movement committed later. The cursor is kept when that cut the window short. This
+        // reads the primary, the only one whose sessions show the running transactions.
+        Instant settled = stockLedger.settledBefore();
+        Instant until = settled.isBefore(end) ? settled : end;
+        SockCursor cursor = after == null ? null : SockCursor.decode(after);
+        List<StockMovement> items = stockLedger.history(id, start, until,
+                cursor == null ? null : cursor.instantValue(),
+                cursor == null ? null : cursor.id(),
+                pageSize);
+
+        StockMovement last = items.isEmpty() ? null : items.get(items.size() - 1);
+        String nextCursor;
+        if (last != null && (items.size() == pageSize || until.isBefore(end))) {
+            nextCursor = SockCursor.encode(last.id(), last.createdAt().toString());
+        } else if (until.isBefore(end)) {
+            nextCursor = after == null ? SockCursor.encode(0, start.toString()) : after;
+        } else {
+            nextCursor = null;
+        }
+        logger.info("Sock history retrieved: {} movements", items.size());
+        return new StockMovementPageDTO(items, nextCursor);
     }
 
     @Override
+    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "import"})
     public void loadCsvFile(MultipartFile file) {
         logger.info("Processing CSV file upload");
         if (file.isEmpty()) {
@@ -119,83 +352,280 @@ public class DefaultSockService implements SockService {
             throw new IllegalArgumentException("File is empty. Please load a correct file");
         }
 
-        List<String> errors = new ArrayList<>();
-        List<Sock> socks = new ArrayList<>();
+        if (parallelCsvParser.isParallel(file.getSize())) {
+            Path spooled;
+            try {
+                spooled = ImportFiles.spool(file, properties.getBatch().getSpoolDirectory());
+            } catch (IOException ex) {
+                logger.error("Error processing CSV file", ex);
+                throw new RuntimeException("Unexpected error.", ex);
+            }
+            try {
+                loadCsvFile(spooled, new ImportProgress());
+            } finally {
+                ImportFiles.delete(spooled);
+            }
+            return;
+        }
 
-        try (Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            CSVReader csvReader = new CSVReader(reader);
-            String[] line;
-            int lineNumber = 0;
+        try (InputStream inputStream = file.getInputStream()) {
+            loadCsv(inputStream, new ImportProgress());
+        } catch (IOException ex) {
+            logger.error("Error processing CSV file", ex);
+            throw new RuntimeException("Unexpected error.", ex);
+        }
+    }
 
-            while ((line = csvReader.readNext()) != null) {
-                lineNumber++;
+    @Override
+    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "import"})
+    public void loadCsv(InputStream inputStream, ImportProgress progress) {
+        socksMetrics.importStarted(progress);
+        try {
+            importBatch(inputStream, BatchFormat.CSV, progress);
+        } finally {
+            socksMetrics.importFinished(progress);
+        }
+    }
 
-                if (lineNumber == 1 && isHeaderRow(line)) {
-                    logger.info("Skipping header row in CSV file");
-                    continue;
+    @Override
+    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "import"})
+    public void loadBatch(InputStream inputStream, BatchFormat format, ImportProgress progress) {
+        logger.info("Processing {} batch stream", format);
+        socksMetrics.importStarted(progress);
+        try {
+            importBatch(inputStream, format, progress);
+        } finally {
+            socksMetrics.importFinished(progress);
+        }
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = SocksMetrics.OPERATION_TIMER, extraTags = {"operation", "import"})
+    public void loadCsvFile(Path file, ImportProgress progress) {
+        socksMetrics.importStarted(progress);
+        try {
+            if (parallelCsvParser.isParallel(Files.size(file))) {
+                importCsvParallel(file, progress);
+            } else {
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    importBatch(inputStream, BatchFormat.CSV, progress);
                 }
+            }
+        } catch (IOException ex) {
+            logger.error("Error processing CSV file", ex);
+            throw new RuntimeException("Unexpected error.", ex);
+        } finally {
+            socksMetrics.importFinished(progress);
+        }
+    }
 
+    private void importBatch(InputStream inputStream, BatchFormat format, ImportProgress progress) {
+        int chunkSize = properties.getBatch().getChunkSize();
+        Map<SockKey, Integer> chunk = new LinkedHashMap<>();
+        int chunkRows = 0;
+
+        try (BatchRowReader rows = BatchRowReader.open(inputStream, format)) {
+            while (true) {
                 try {
-                    String color = validateColor(line[0], lineNumber);
-                    double cottonPart = validateCottonPart(line[1], lineNumber);
-                    int quantity = validateQuantity(line[2], lineNumber);
+                    String[] line = rows.readNext();
+                    if (line == null) {
+                        break;
+                    }
+
+                    if (rows.isHeader(line)) {
+                        logger.info("Skipping header row in CSV file");
+                        continue;
+                    }
 
-                    socks.add(new Sock(null, color, cottonPart, quantity));
+                    Sock sock = SockRowValidator.validate(line, rows.lineNumber());
+                    if (progress.hasErrors()) {
+                        progress.rowParsed();
+                        continue;
+                    }
+                    SockRowValidator.addQuantity(chunk, sock, rows.lineNumber());
+                    progress.rowParsed();
+                    chunkRows++;
+                    if (chunk.size() >= chunkSize) {
+                        flushChunk(chunk, chunkRows, progress);
+                        chunkRows = 0;
+                    }
                 } catch (IllegalArgumentException ex) {
-                    logger.warn("Error processing line {}: {}", lineNumber, ex.getMessage());
-                    errors.add(ex.getMessage());
+                    logger.warn("Error processing line {}: {}", rows.lineNumber(), ex.getMessage());
+                    progress.rowRejected(ex.getMessage());
+                    chunk.clear();
                 }
             }
+        } catch (IOException ex) {
+            logger.error("Error processing {} batch", format, ex);
+            throw new RuntimeException("Unexpected error.", ex);
+        }
+
+        checkImportErrors(progress);
+        flushChunk(chunk, chunkRows, progress);
+        importCompleted(progress);
+    }
 
-            if (!errors.isEmpty()) {
-                logger.error("Errors occurred while reading CSV file:\n{}", String.join("\n", errors));
-                throw new IllegalArgumentException("Errors in file's reading:\n" + String.join("\n", errors));
+    /**
+     * Imports ranges parsed in parallel. They arrive in file order, so errors are reported in line order and
+     * nothing after the first error is saved, like in a sequential import.
+     */
+    private void importCsvParallel(Path file, ImportProgress progress) throws IOException {
+        int chunkSize = properties.getBatch().getChunkSize();
+        parallelCsvParser.parse(file, range -> {
+            progress.rowsParsed(range.rows());
+            range.errors().forEach(progress::rowRejected);
+            if (progress.hasErrors()) {
+                return;
             }
+            Map<SockKey, Integer> chunk = new LinkedHashMap<>();
+            for (Map.Entry<SockKey, Integer> entry : range.quantities().entrySet()) {
+                chunk.put(entry.getKey(), entry.getValue());
+                if (chunk.size() >= chunkSize) {
+                    flushChunk(chunk, 0, progress);
+                }
+            }
+            flushChunk(chunk, 0, progress);
+            progress.rowsPersisted(range.rows());
+        });
 
-            sockRepository.saveAll(socks);
-            logger.info("CSV file processed successfully. Saved socks: {}", socks);
-        } catch (Exception ex) {
-            logger.error("Error processing CSV file", ex);
-            throw new RuntimeException("Unexpected error.", ex);
+        checkImportErrors(progress);
+        importCompleted(progress);
+    }
+
+    private void checkImportErrors(ImportProgress progress) {
+        if (progress.hasErrors()) {
+            socksMetrics.rowsRejected(progress.getErrorCount());
+            List<String> errors = new ArrayList<>(progress.getErrors());
+            if (progress.getErrorCount() > errors.size()) {
+                errors.add("... and " + (progress.getErrorCount() - errors.size()) + " more incorrect rows");
+            }
+            logger.error("Errors occurred while reading CSV file:\n{}", String.join("\n", errors));
+            throw new IllegalArgumentException("Errors in file's reading:\n" + String.join("\n", errors));
         }
     }
 
-    private boolean isHeaderRow(String[] line) {
-        return line[0].equalsIgnoreCase("color") &&
-                line[1].equalsIgnoreCase("cottonPart") &&
-                line[2].equalsIgnoreCase("quantity");
+    private void importCompleted(ImportProgress progress) {
+        socksMetrics.rowsImported(progress.getRowsPersisted());
+        logger.info("CSV file processed successfully. Saved socks rows: {}", progress.getRowsPersisted());
     }
 
-    private String validateColor(String color, int lineNumber) {
-        if (color == null || color.trim().isEmpty()) {
-            throw new IllegalArgumentException("String " + lineNumber + ": Color cannot be empty.");
+    private int pageSize(Integer limit) {
+        int pageSize = limit == null ? properties.getQuery().getDefaultPageSize() : limit;
+        if (pageSize < 1 || pageSize > properties.getQuery().getMaxPageSize()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + properties.getQuery().getMaxPageSize());
         }
-        return color.trim();
+        return pageSize;
     }
 
-    private double validateCottonPart(String cottonPartStr, int lineNumber) {
-        try {
-            double cottonPart = Double.parseDouble(cottonPartStr.trim());
-            if (cottonPart < 0 || cottonPart > 100) {
-                throw new IllegalArgumentException("String " + lineNumber + ": Cotton part must be between 0 and 100.");
-            }
-            return cottonPart;
-        } catch (NumberFormatException ex) {
-            throw new IllegalArgumentException("String " + lineNumber + ": Incorrect cotton part.");
+    private String normalizeSortBy(String sortBy) {
+        return sortBy != null && sortBy.equalsIgnoreCase("cottonPart") ? "cottonPart" : "color";
+    }
+
+    private int checkBulkSize(List<SocksDTO> items) {
+        int maxItems = properties.getBatch().getMaxBulkItems();
+        if (items == null || items.isEmpty() || items.size() > maxItems) {
+            throw new IllegalArgumentException("Bulk request must contain between 1 and " + maxItems + " items");
         }
+        return items.size();
     }
 
-    private int validateQuantity(String quantityStr, int lineNumber) {
-        try {
-            int quantity = Integer.parseInt(quantityStr.trim());
-            if (quantity <= 0) {
-                throw new IllegalArgumentException("String " + lineNumber + ": quantity must be greater than 0.");
+    /**
+     * Marks invalid items in {@code results} and groups the indexes of the valid ones by sock.
+     */
+    private Map<SockKey, List<Integer>> groupValidItems(List<SocksDTO> items, BulkItemResultDTO[] results) {
+        Map<SockKey, List<Integer>> groups = new TreeMap<>(SockKey.LOCK_ORDER);
+        for (int index = 0; index < items.size(); index++) {
+            SocksDTO item = items.get(index);
+            String error = validateBulkItem(item);
+            if (error != null) {
+                results[index] = new BulkItemResultDTO(index, BulkItemStatus.INVALID, error);
+            } else {
+                groups.computeIfAbsent(new SockKey(item.getColor(), item.getCottonPart()), key -> new ArrayList<>()).add(index);
             }
-            return quantity;
-        } catch (NumberFormatException ex) {
-            throw new IllegalArgumentException("String " + lineNumber + ": incorrect quantity.");
         }
+        return groups;
     }
 
-}
+    private String validateBulkItem(SocksDTO item) {
+        if (item == null) {
+            return "Item cannot be empty";
+        }
+        if (item.getColor() == null || item.getColor().isBlank()) {
+            return "Color cannot be empty";
+        }
+        if (item.getCottonPart() == null) {
+            return "Cotton part is mandatory";
+        }
+        if (item.getCottonPart() < 0 || item.getCottonPart() > 100) {
+            return "Cotton part must be between 0 and 100";
+        }
+        if (item.getQuantity() == null) {
+            return "Socks quantity is mandatory";
+        }
+        if (item.getQuantity() <= 0) {
+            return "Socks quantity must be greater than 0";
+        }
+        return null;
+    }
 
+    private Sock coalesce(SockKey key, List<Integer> indexes, List<SocksDTO> items) {
+        long quantity = 0;
+        for (int index : indexes) {
+            quantity += items.get(index).getQuantity();
+        }
+        if (quantity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bulk quantity of " + key.color() + " socks with cotton part "
+                    + key.cottonPart() + " exceeds " + Integer.MAX_VALUE);
+        }
+        return new Sock(null, key.color(), key.cottonPart(), (int) quantity);
+    }
+
+    private BulkItemResultDTO decrementItem(int index, SocksDTO item, List<Sock> movements) {
+        if (sockRepository.decrementQuantity(item.getColor(), item.getCottonPart(), item.getQuantity()) != 0) {
+            inventoryChanges.record(item.getColor(), item.getCottonPart(), -item.getQuantity());
+            movements.add(new Sock(null, item.getColor(), item.getCottonPart(), -item.getQuantity()));
+            return applied(index);
+        }
+        return itemResult(index, item, sockRepository.existsByColorAndCottonPart(item.getColor(), item.getCottonPart())
+                ? BulkItemStatus.INSUFFICIENT_STOCK : BulkItemStatus.NOT_FOUND);
+    }
+
+    private BulkItemResultDTO itemResult(int index, SocksDTO item, BulkItemStatus status) {
+        if (status == BulkItemStatus.NOT_FOUND) {
+            return new BulkItemResultDTO(index, BulkItemStatus.NOT_FOUND,
+                    "Socks with color " + item.getColor() + " and cotton part " + item.getCottonPart() + " not found");
+        }
+        if (status == BulkItemStatus.INSUFFICIENT_STOCK) {
+            socksMetrics.insufficientStock();
+            return new BulkItemResultDTO(index, BulkItemStatus.INSUFFICIENT_STOCK, "Socks outcome quantity exceeds the available stock");
+        }
+        return applied(index);
+    }
+
+    private BulkItemResultDTO applied(int index) {
+        return new BulkItemResultDTO(index, BulkItemStatus.APPLIED, null);
+    }
+
+    private BulkResultDTO bulkResult(BulkItemResultDTO[] results) {
+        int applied = (int) Arrays.stream(results).filter(result -> result.getStatus() == BulkItemStatus.APPLIED).count();
+        return new BulkResultDTO(applied, results.length - applied, Arrays.asList(results));
+    }
+
+    private void flushChunk(Map<SockKey, Integer> chunk, int chunkRows, ImportProgress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Sock> socks = chunk.entrySet().stream()
+                .map(entry -> new Sock(null, entry.getKey().color(), entry.getKey().cottonPart(), entry.getValue()))
+                .toList();
+        sockRepository.upsertIncomeAll(socks);
+        stockLedger.recordAll(StockMovementType.IMPORT, socks);
+        chunk.forEach((key, quantity) -> inventoryChanges.record(key.color(), key.cottonPart(), quantity));
+        progress.rowsPersisted(chunkRows);
+        chunk.clear();
+    }
+
+}
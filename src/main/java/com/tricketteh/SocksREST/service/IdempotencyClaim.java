@@ -0,0 +1,40 @@
+package com.tricketteh.SocksREST.service;
+
+import java.util.UUID;
+
+/**
+ * Outcome of claiming an Idempotency-Key. The response is set only when the key was already answered, the token
+ * only when the claim was acquired.
+ */
+public record IdempotencyClaim(State state, IdempotentResponse response, UUID token) {
+
+    public static final IdempotencyClaim IN_PROGRESS = new IdempotencyClaim(State.IN_PROGRESS, null, null);
+    public static final IdempotencyClaim MISMATCH = new IdempotencyClaim(State.MISMATCH, null, null);
+
+    public static IdempotencyClaim acquired(UUID token) {
+        return new IdempotencyClaim(State.ACQUIRED, null, token);
+    }
+
+    public static IdempotencyClaim completed(IdempotentResponse response) {
+        return new IdempotencyClaim(State.COMPLETED, response, null);
+    }
+
+    public enum State {
+        /**
+         * The key is new or was taken over; the caller must complete or release it with the token.
+         */
+        ACQUIRED,
+        /**
+         * Another request with the same key is in progress.
+         */
+        IN_PROGRESS,
+        /**
+         * A request with the same key was answered.
+         */
+        COMPLETED,
+        /**
+         * The key was used by a different request.
+         */
+        MISMATCH
+    }
+}
@@ -0,0 +1,27 @@
+package com.tricketteh.SocksREST.service;
+
+import java.util.UUID;
+
+/**
+ * Keeps Idempotency-Keys and the responses of the requests that sent them, for a limited time.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims the key for a request with the given fingerprint. Of concurrent claims of the same key only one is
+     * acquired, with a token that tells it from a later claim taking the key over.
+     */
+    IdempotencyClaim claim(String key, String fingerprint);
+
+    /**
+     * Stores the response of the request holding the key, to be replayed to later requests with the key. Does
+     * nothing when the claim with the token no longer holds the key.
+     */
+    void complete(String key, UUID token, IdempotentResponse response);
+
+    /**
+     * Gives up a key whose request failed, so a retry executes again. Does nothing when the claim with the token no
+     * longer holds the key.
+     */
+    void release(String key, UUID token);
+}
@@ -0,0 +1,7 @@
+package com.tricketteh.SocksREST.service;
+
+/**
+ * Response kept for an Idempotency-Key: its status, Location header and JSON body, either may be absent.
+ */
+public record IdempotentResponse(int status, String location, byte[] body) {
+}
@@ -0,0 +1,44 @@
+package com.tricketteh.SocksREST.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Spooling of uploaded CSV files to disk.
+ */
+final class ImportFiles {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportFiles.class);
+
+    private ImportFiles() {
+    }
+
+    /**
+     * Copies the upload to a new file in the directory, or in the system temporary directory when it is not set.
+     */
+    static Path spool(MultipartFile file, Path directory) throws IOException {
+        Path spooled = directory == null
+                ? Files.createTempFile("socks-import-", ".csv")
+                : Files.createTempFile(directory, "socks-import-", ".csv");
+        try {
+            file.transferTo(spooled);
+        } catch (IOException ex) {
+            delete(spooled);
+            throw ex;
+        }
+        return spooled;
+    }
+
+    static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.warn("Could not delete spooled import file {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.tricketteh.SocksREST.service;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+@Getter
+class ImportJob {
+
+    private final String id;
+    private final Path file;
+    private final Instant submittedAt = Instant.now();
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile ImportProgress progress = new ImportProgress();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    ImportJob(String id, Path file) {
+        this.id = id;
+        this.file = file;
+    }
+
+    void start() {
+        progress = new ImportProgress();
+        startedAt = Instant.now();
+        status = ImportJobStatus.RUNNING;
+    }
+
+    void complete() {
+        progress.finish();
+        finishedAt = Instant.now();
+        status = ImportJobStatus.COMPLETED;
+    }
+
+    void fail(String failure) {
+        progress.finish();
+        this.failure = failure;
+        finishedAt = Instant.now();
+        status = ImportJobStatus.FAILED;
+    }
+}
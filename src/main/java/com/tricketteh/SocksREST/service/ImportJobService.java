@@ -0,0 +1,13 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.dto.ImportJobDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface ImportJobService {
+
+    ImportJobDTO submit(MultipartFile file) throws IOException;
+
+    ImportJobDTO getJob(String jobId);
+}
@@ -0,0 +1,84 @@
+package com.tricketteh.SocksREST.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a running CSV import. Written by the importing thread, safe to read from any other thread. Only the
+ * first {@link #MAX_ERRORS} errors are kept, the others are counted.
+ */
+public class ImportProgress {
+
+    public static final int MAX_ERRORS = 100;
+
+    private final long startedAtNanos = System.nanoTime();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsPersisted = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private int errorCount;
+    private volatile long elapsedNanos = -1;
+
+    void rowParsed() {
+        rowsParsed.incrementAndGet();
+    }
+
+    void rowsParsed(long rows) {
+        rowsParsed.addAndGet(rows);
+    }
+
+    void rowsPersisted(long rows) {
+        rowsPersisted.addAndGet(rows);
+    }
+
+    void rowRejected(String error) {
+        rowsParsed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+            errorCount++;
+        }
+    }
+
+    /**
+     * Stops the clock of the import, so its rate stays the one it ended with.
+     */
+    void finish() {
+        if (elapsedNanos < 0) {
+            elapsedNanos = System.nanoTime() - startedAtNanos;
+        }
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public long getRowsPersisted() {
+        return rowsPersisted.get();
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = elapsedNanos;
+        double seconds = (elapsed < 0 ? System.nanoTime() - startedAtNanos : elapsed) / 1_000_000_000.0;
+        return seconds > 0 ? rowsParsed.get() / seconds : 0;
+    }
+
+    public boolean hasErrors() {
+        synchronized (errors) {
+            return errorCount > 0;
+        }
+    }
+
+    public int getErrorCount() {
+        synchronized (errors) {
+            return errorCount;
+        }
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+}
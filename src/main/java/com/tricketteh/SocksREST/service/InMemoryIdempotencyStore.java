@@ -0,0 +1,115 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Idempotency-Keys of this instance. Keys are kept in claim order, so expired keys are evicted from the head on
+ * every claim; the oldest answered key is also dropped once the store is full. Keys in progress are never dropped,
+ * so a new key is refused while the store is full of them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "socks.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final long ttlNanos;
+    private final long lockTimeoutNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoTime;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public InMemoryIdempotencyStore(SocksProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    InMemoryIdempotencyStore(SocksProperties properties, LongSupplier nanoTime) {
+        SocksProperties.Idempotency idempotency = properties.getIdempotency();
+        this.ttlNanos = idempotency.getTtl().toNanos();
+        this.lockTimeoutNanos = idempotency.getLockTimeout().toNanos();
+        this.maxKeys = idempotency.getMaxKeys();
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public IdempotencyClaim claim(String key, String fingerprint) {
+        long now = nanoTime.getAsLong();
+        synchronized (entries) {
+            evictExpired(now);
+            Entry entry = entries.get(key);
+            if (entry == null || (entry.response == null && now - entry.claimedAt > lockTimeoutNanos)) {
+                if (entry == null && entries.size() >= maxKeys && !evictEldestCompleted()) {
+                    throw new RejectedExecutionException("Too many requests with an Idempotency-Key in progress");
+                }
+                UUID token = UUID.randomUUID();
+                // Removed first so a taken over key moves to the tail with its new claim time.
+                entries.remove(key);
+                entries.put(key, new Entry(fingerprint, now, token, null));
+                return IdempotencyClaim.acquired(token);
+            }
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return IdempotencyClaim.MISMATCH;
+            }
+            return entry.response == null ? IdempotencyClaim.IN_PROGRESS : IdempotencyClaim.completed(entry.response);
+        }
+    }
+
+    @Override
+    public void complete(String key, UUID token, IdempotentResponse response) {
+        synchronized (entries) {
+            entries.computeIfPresent(key, (k, entry) -> entry.heldBy(token)
+                    ? new Entry(entry.fingerprint, entry.claimedAt, entry.token, response) : entry);
+        }
+    }
+
+    @Override
+    public void release(String key, UUID token) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.heldBy(token)) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().claimedAt <= ttlNanos) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private boolean evictEldestCompleted() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().response != null) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Entry(String fingerprint, long claimedAt, UUID token, IdempotentResponse response) {
+
+        private boolean heldBy(UUID claimToken) {
+            return response == null && token.equals(claimToken);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.tricketteh.SocksREST.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects quantity deltas of the current transaction and hands them to {@link InventoryListener}s after commit,
+ * so in-memory views never see changes that were rolled back. A commit holds off {@link InventorySnapshots} until
+ * its deltas are published.
+ */
+@Component
+public class InventoryChanges {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryChanges.class);
+
+    private final List<InventoryListener> listeners;
+    private final InventorySnapshots snapshots;
+
+    public InventoryChanges(List<InventoryListener> listeners, InventorySnapshots snapshots) {
+        this.listeners = listeners;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Records a delta of the sock. A zero delta is not handed to listeners, but still publishes the change of the
+     * sock, e.g. an update of its color only.
+     */
+    public void record(String color, double cottonPart, long delta) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(delta == 0 ? Map.of() : Map.of(new SockKey(color, cottonPart), delta));
+            return;
+        }
+        Map<SockKey, Long> pending = pendingDeltas();
+        if (delta != 0) {
+            pending.merge(new SockKey(color, cottonPart), delta, Long::sum);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<SockKey, Long> pendingDeltas() {
+        Map<SockKey, Long> pending = (Map<SockKey, Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<SockKey, Long> deltas = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean committing;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    snapshots.publishing();
+                    committing = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(InventoryChanges.this);
+                        if (status == STATUS_COMMITTED) {
+                            publish(deltas);
+                        }
+                    } finally {
+                        if (committing) {
+                            snapshots.published();
+                        }
+                    }
+                }
+            });
+            pending = deltas;
+        }
+        return pending;
+    }
+
+    private void publish(Map<SockKey, Long> deltas) {
+        for (InventoryListener listener : listeners) {
+            try {
+                listener.onInventoryChanged(deltas);
+            } catch (RuntimeException ex) {
+                logger.error("Inventory listener {} failed to apply changes", listener.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.SockQuantity;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-process copy of the inventory answering count queries without touching the database.
+ * Built from the table at startup, kept up to date from committed {@link InventoryChanges} and
+ * periodically verified against the table. Like {@link InventoryStats}, a rebuild reads the table in a snapshot
+ * taken through {@link InventorySnapshots} and adds the deltas published after it, so no delta is counted twice.
+ */
+@Component
+public class InventoryIndex implements InventoryListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryIndex.class);
+
+    private final SockRepository sockRepository;
+    private final InventorySnapshots inventorySnapshots;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final Lock rebuilding = new ReentrantLock();
+    // A lock instead of synchronized: verification queries the database and must not pin a virtual thread.
+    private final Lock verifyLock = new ReentrantLock();
+    private volatile Map<String, CottonPartTree> colors = new ConcurrentHashMap<>();
+    private volatile CottonPartTree allColors = new CottonPartTree();
+    private volatile Queue<Map<SockKey, Long>> sinceSnapshot;
+    private volatile boolean ready;
+    private int failedVerifications;
+
+    public InventoryIndex(SockRepository sockRepository, SocksProperties properties,
+                          InventorySnapshots inventorySnapshots, PlatformTransactionManager transactionManager) {
+        this.sockRepository = sockRepository;
+        this.inventorySnapshots = inventorySnapshots;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = properties.getInventoryIndex().isEnabled();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Sums quantities with the same filters as {@link SockRepository#sumQuantity}.
+     */
+    public long sum(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax) {
+        CottonPartTree tree = color == null ? allColors : colors.get(normalize(color));
+        return tree == null ? 0 : tree.sum(operation, cottonPart, cottonPartMin, cottonPartMax);
+    }
+
+    @Override
+    public void onInventoryChanged(Map<SockKey, Long> deltas) {
+        if (!enabled) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            Queue<Map<SockKey, Long>> tracked = sinceSnapshot;
+            if (tracked != null) {
+                tracked.add(deltas);
+            }
+            add(colors, allColors, deltas);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        logger.info("Rebuilding inventory index");
+        rebuilding.lock();
+        try {
+            Queue<Map<SockKey, Long>> published = new ConcurrentLinkedQueue<>();
+            List<SockQuantity> rows = transactionTemplate.execute(status -> {
+                inventorySnapshots.snapshot(() -> {
+                    sockRepository.startSnapshot();
+                    sinceSnapshot = published;
+                    return null;
+                });
+                return sockRepository.sumQuantityBySock();
+            });
+            Map<String, TreeMap<Double, Long>> byColor = new HashMap<>();
+            TreeMap<Double, Long> total = new TreeMap<>();
+            for (SockQuantity row : rows) {
+                byColor.computeIfAbsent(row.getColor(), color -> new TreeMap<>()).merge(row.getCottonPart(), row.getQuantity(), Long::sum);
+                total.merge(row.getCottonPart(), row.getQuantity(), Long::sum);
+            }
+
+            Map<String, CottonPartTree> rebuilt = new ConcurrentHashMap<>();
+            byColor.forEach((color, quantities) -> rebuilt.put(color, toTree(quantities)));
+            CottonPartTree rebuiltAllColors = toTree(total);
+            rebuildLock.writeLock().lock();
+            try {
+                sinceSnapshot = null;
+                published.forEach(deltas -> add(rebuilt, rebuiltAllColors, deltas));
+                colors = rebuilt;
+                allColors = rebuiltAllColors;
+                ready = true;
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+            logger.info("Inventory index rebuilt: {} colors, {} cotton parts", rebuilt.size(), total.size());
+        } finally {
+            sinceSnapshot = null;
+            rebuilding.unlock();
+        }
+    }
+
+    /**
+     * Compares the index with the table and returns a description of every sock whose quantity differs.
+     */
+    public List<String> verify() {
+        Map<SockKey, Long> expected = new HashMap<>();
+        for (SockQuantity row : sockRepository.sumQuantityBySock()) {
+            expected.put(new SockKey(row.getColor(), row.getCottonPart()), row.getQuantity());
+        }
+
+        Map<SockKey, Long> actual = new HashMap<>();
+        colors.forEach((color, tree) -> tree.quantities().forEach((cottonPart, quantity) -> {
+            if (quantity != 0) {
+                actual.put(new SockKey(color, cottonPart), quantity);
+            }
+        }));
+
+        List<String> mismatches = new ArrayList<>();
+        expected.forEach((key, quantity) -> {
+            Long indexed = actual.remove(key);
+            if (!Objects.equals(quantity, indexed == null ? 0L : indexed)) {
+                mismatches.add(key + ": table " + quantity + ", index " + indexed);
+            }
+        });
+        actual.forEach((key, quantity) -> mismatches.add(key + ": table null, index " + quantity));
+        return mismatches;
+    }
+
+    /**
+     * Rebuilds the index when it drifted from the table on two checks in a row. A single mismatch may be a write
+     * that committed between reading the table and reading the index.
+     */
+    @Scheduled(fixedDelayString = "${socks.inventory-index.verify-interval:PT5M}",
+            initialDelayString = "${socks.inventory-index.verify-interval:PT5M}")
+    public void verifyAndRepair() {
+        if (!ready) {
+            return;
+        }
+        verifyLock.lock();
+        try {
+            List<String> mismatches = verify();
+            if (mismatches.isEmpty()) {
+                failedVerifications = 0;
+                return;
+            }
+            failedVerifications++;
+            logger.warn("Inventory index differs from the table ({} time(s) in a row): {}", failedVerifications, mismatches);
+            if (failedVerifications >= 2) {
+                rebuild();
+                failedVerifications = 0;
+            }
+        } finally {
+            verifyLock.unlock();
+        }
+    }
+
+    private static void add(Map<String, CottonPartTree> colors, CottonPartTree allColors, Map<SockKey, Long> deltas) {
+        deltas.forEach((key, delta) -> {
+            colors.computeIfAbsent(normalize(key.color()), color -> new CottonPartTree()).add(key.cottonPart(), delta);
+            allColors.add(key.cottonPart(), delta);
+        });
+    }
+
+    private static CottonPartTree toTree(TreeMap<Double, Long> quantities) {
+        double[] cottonParts = new double[quantities.size()];
+        long[] values = new long[quantities.size()];
+        int i = 0;
+        for (Map.Entry<Double, Long> entry : quantities.entrySet()) {
+            cottonParts[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new CottonPartTree(cottonParts, values);
+    }
+
+    private static String normalize(String color) {
+        return color.toLowerCase(Locale.ROOT);
+    }
+}
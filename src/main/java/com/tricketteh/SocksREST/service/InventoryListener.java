@@ -0,0 +1,11 @@
+package com.tricketteh.SocksREST.service;
+
+import java.util.Map;
+
+/**
+ * Receives quantity deltas per sock once the transaction that produced them has committed.
+ */
+public interface InventoryListener {
+
+    void onInventoryChanged(Map<SockKey, Long> deltas);
+}
@@ -0,0 +1,40 @@
+package com.tricketteh.SocksREST.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Orders reads of the table against the publication of {@link InventoryChanges}. A transaction holds the publish
+ * side from its commit until its deltas are published, so a snapshot taken in {@link #snapshot} sees every delta of
+ * this instance either in the table or in a publication after it, never in both or neither.
+ */
+@Component
+public class InventorySnapshots {
+
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+
+    void publishing() {
+        publishLock.readLock().lock();
+    }
+
+    void published() {
+        publishLock.readLock().unlock();
+    }
+
+    /**
+     * Runs a read of the table while no transaction is between its commit and the publication of its deltas. A
+     * listener that starts tracking changes inside the read gets exactly the deltas the read did not see. The read
+     * should already hold its connection and be short, since committing transactions wait for it with theirs.
+     */
+    public <T> T snapshot(Supplier<T> read) {
+        publishLock.writeLock().lock();
+        try {
+            return read.get();
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.ColorStatsDTO;
+import com.tricketteh.SocksREST.dto.CottonPartStatsDTO;
+import com.tricketteh.SocksREST.dto.InventoryStatsDTO;
+import com.tricketteh.SocksREST.repository.SockQuantity;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory rollup of the inventory: total quantity and number of socks in stock per color and per cotton part
+ * bucket. Built from the table at startup and kept up to date from committed {@link InventoryChanges}, so reading it
+ * costs the same however many socks are stored. {@link #rebuild()} repairs it when it drifted from the table.
+ * <p>
+ * A rebuild reads the table in a repeatable read transaction whose snapshot is taken through
+ * {@link InventorySnapshots}, so exactly the deltas published after that point are missing from it. Those are
+ * collected while the table is summed and applied to the rebuilt rollup before it replaces the current one.
+ */
+@Component
+public class InventoryStats implements InventoryListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStats.class);
+
+    private final SockRepository sockRepository;
+    private final InventorySnapshots inventorySnapshots;
+    private final TransactionTemplate transactionTemplate;
+    private final double bucketWidth;
+    private final int bucketCount;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final Lock rebuilding = new ReentrantLock();
+    private volatile Rollup rollup;
+    private volatile Queue<Map<SockKey, Long>> sinceSnapshot;
+    private volatile boolean ready;
+
+    public InventoryStats(SockRepository sockRepository, SocksProperties properties,
+                          InventorySnapshots inventorySnapshots, PlatformTransactionManager transactionManager) {
+        this.sockRepository = sockRepository;
+        this.inventorySnapshots = inventorySnapshots;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.bucketWidth = properties.getStats().getBucketWidth();
+        if (!(bucketWidth > 0 && bucketWidth <= 100)) {
+            throw new IllegalArgumentException("socks.stats.bucket-width must be greater than 0 and at most 100");
+        }
+        this.bucketCount = (int) Math.ceil(100 / bucketWidth);
+        this.rollup = new Rollup(bucketCount);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the current totals, building the rollup first when a request comes before startup finished.
+     */
+    public InventoryStatsDTO stats() {
+        if (!ready) {
+            rebuild();
+        }
+        Rollup current = rollup;
+
+        List<ColorStatsDTO> colors = new ArrayList<>();
+        current.colors.forEach((color, totals) -> {
+            long quantity = totals.quantity.sum();
+            long skus = totals.skus.sum();
+            if (quantity != 0 || skus != 0) {
+                colors.add(new ColorStatsDTO(color, quantity, skus));
+            }
+        });
+        colors.sort(Comparator.comparing(ColorStatsDTO::getColor));
+
+        List<CottonPartStatsDTO> cottonParts = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            Totals totals = current.buckets[i];
+            cottonParts.add(new CottonPartStatsDTO(i * bucketWidth, Math.min((i + 1) * bucketWidth, 100),
+                    totals.quantity.sum(), totals.skus.sum()));
+        }
+
+        return new InventoryStatsDTO(current.total.quantity.sum(), current.total.skus.sum(), colors, cottonParts);
+    }
+
+    @Override
+    public void onInventoryChanged(Map<SockKey, Long> deltas) {
+        rebuildLock.readLock().lock();
+        try {
+            Queue<Map<SockKey, Long>> tracked = sinceSnapshot;
+            if (tracked != null) {
+                tracked.add(deltas);
+            }
+            Rollup current = rollup;
+            deltas.forEach((key, delta) -> current.add(key, delta, bucket(key.cottonPart())));
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        logger.info("Rebuilding inventory stats");
+        rebuilding.lock();
+        try {
+            Queue<Map<SockKey, Long>> published = new ConcurrentLinkedQueue<>();
+            List<SockQuantity> rows = transactionTemplate.execute(status -> {
+                inventorySnapshots.snapshot(() -> {
+                    sockRepository.startSnapshot();
+                    sinceSnapshot = published;
+                    return null;
+                });
+                return sockRepository.sumQuantityBySock();
+            });
+            Rollup rebuilt = new Rollup(bucketCount);
+            for (SockQuantity row : rows) {
+                SockKey key = new SockKey(row.getColor(), row.getCottonPart());
+                rebuilt.add(key, row.getQuantity(), bucket(key.cottonPart()));
+            }
+
+            rebuildLock.writeLock().lock();
+            try {
+                sinceSnapshot = null;
+                for (Map<SockKey, Long> deltas : published) {
+                    deltas.forEach((key, delta) -> rebuilt.add(key, delta, bucket(key.cottonPart())));
+                }
+                rollup = rebuilt;
+                ready = true;
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+            logger.info("Inventory stats rebuilt: {} socks, {} colors", rebuilt.quantities.size(), rebuilt.colors.size());
+        } finally {
+            sinceSnapshot = null;
+            rebuilding.unlock();
+        }
+    }
+
+    private int bucket(double cottonPart) {
+        int bucket = (int) Math.floor(cottonPart / bucketWidth);
+        return Math.max(0, Math.min(bucket, bucketCount - 1));
+    }
+
+    private static final class Rollup {
+
+        private final Map<SockKey, Long> quantities = new ConcurrentHashMap<>();
+        private final Map<String, Totals> colors = new ConcurrentHashMap<>();
+        private final Totals[] buckets;
+        private final Totals total = new Totals();
+
+        private Rollup(int bucketCount) {
+            buckets = new Totals[bucketCount];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new Totals();
+            }
+        }
+
+        /**
+         * Applies a delta of one sock. Its quantity is kept to know when the sock comes in or goes out of stock;
+         * the totals are updated inside the compute, so concurrent deltas of the same sock count the change once.
+         */
+        private void add(SockKey key, long delta, int bucket) {
+            quantities.compute(key, (k, previous) -> {
+                long before = previous == null ? 0 : previous;
+                long after = before + delta;
+                int skus = (after > 0 ? 1 : 0) - (before > 0 ? 1 : 0);
+                total.add(delta, skus);
+                colors.computeIfAbsent(key.color(), color -> new Totals()).add(delta, skus);
+                buckets[bucket].add(delta, skus);
+                return after == 0 ? null : after;
+            });
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder quantity = new LongAdder();
+        private final LongAdder skus = new LongAdder();
+
+        private void add(long quantityDelta, int skusDelta) {
+            quantity.add(quantityDelta);
+            skus.add(skusDelta);
+        }
+    }
+}
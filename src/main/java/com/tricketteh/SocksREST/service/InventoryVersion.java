@@ -0,0 +1,25 @@
+package com.tricketteh.SocksREST.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the inventory, bumped after every committed change made through this instance. Cached query
+ * results are keyed by it, so they are not served after such a change.
+ */
+@Component
+public class InventoryVersion implements InventoryListener {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    @Override
+    public void onInventoryChanged(Map<SockKey, Long> deltas) {
+        version.incrementAndGet();
+    }
+}
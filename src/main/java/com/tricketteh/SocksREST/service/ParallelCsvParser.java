@@ -0,0 +1,232 @@
+package com.tricketteh.SocksREST.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.ICSVParser;
+import com.opencsv.exceptions.CsvValidationException;
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.entity.Sock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses and validates a CSV file of socks in line-aligned byte ranges on a fork-join pool. The boundaries come from
+ * one sequential scan that follows quotes and escapes like the opencsv defaults, so a quoted field spanning lines
+ * is never split, and that counts records, so errors carry the same line numbers as in a sequential import.
+ */
+@Component
+public class ParallelCsvParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCsvParser.class);
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final byte QUOTE = (byte) ICSVParser.DEFAULT_QUOTE_CHARACTER;
+    private static final byte ESCAPE = (byte) ICSVParser.DEFAULT_ESCAPE_CHARACTER;
+
+    private final boolean enabled;
+    private final long rangeSize;
+    private final ForkJoinPool pool;
+
+    public ParallelCsvParser(SocksProperties properties) {
+        SocksProperties.Batch batch = properties.getBatch();
+        this.enabled = batch.isParallelParsing();
+        this.rangeSize = batch.getParseRangeSize().toBytes();
+        this.pool = new ForkJoinPool(batch.getParseThreads() > 0
+                ? batch.getParseThreads()
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Tells whether a file of the given size is worth parsing in parallel.
+     */
+    public boolean isParallel(long fileSize) {
+        return enabled && fileSize >= 2 * rangeSize;
+    }
+
+    /**
+     * Parses the ranges of the file in parallel and hands them to the consumer on the calling thread in file order.
+     * At most two ranges per thread are parsed ahead of the consumer.
+     */
+    public void parse(Path file, Consumer<ParsedRange> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Range> ranges = split(channel, rangeSize);
+            logger.info("Parsing CSV file in {} ranges on {} threads", ranges.size(), pool.getParallelism());
+            Deque<ForkJoinTask<ParsedRange>> parsing = new ArrayDeque<>();
+            int next = 0;
+            try {
+                while (next < ranges.size() || !parsing.isEmpty()) {
+                    while (next < ranges.size() && parsing.size() < 2 * pool.getParallelism()) {
+                        Range range = ranges.get(next++);
+                        parsing.add(pool.submit(() -> parseRange(channel, range)));
+                    }
+                    consumer.accept(parsing.poll().join());
+                }
+            } finally {
+                parsing.forEach(task -> task.cancel(false));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    static List<Range> split(FileChannel channel, long rangeSize) throws IOException {
+        long size = channel.size();
+        List<Range> ranges = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long rangeStart = 0;
+        int firstLine = 1;
+        int records = 0;
+        boolean inQuotes = false;
+        boolean escaped = false;
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (escaped) {
+                    escaped = false;
+                    if (b == QUOTE || b == ESCAPE) {
+                        continue;
+                    }
+                }
+                if (b == ESCAPE) {
+                    escaped = true;
+                } else if (b == QUOTE) {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    records++;
+                    long end = position + i + 1;
+                    if (end - rangeStart >= rangeSize && end < size) {
+                        ranges.add(new Range(rangeStart, end, firstLine));
+                        rangeStart = end;
+                        firstLine = records + 1;
+                    }
+                }
+            }
+            position += read;
+        }
+        if (rangeStart < size) {
+            ranges.add(new Range(rangeStart, size, firstLine));
+        }
+        return ranges;
+    }
+
+    private ParsedRange parseRange(FileChannel channel, Range range) {
+        Map<SockKey, Integer> quantities = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        int rows = 0;
+        try (CSVReader csvReader = new CSVReader(new BufferedReader(new Utf8LineReader(
+                new RangeInputStream(channel, range.start(), range.end()), range.firstLine()), READ_BUFFER_SIZE))) {
+            int lineNumber = range.firstLine() - 1;
+            while (true) {
+                String[] line;
+                try {
+                    line = csvReader.readNext();
+                } catch (IllegalArgumentException ex) {
+                    // A line that is not valid UTF-8, reading goes on with the next one.
+                    lineNumber++;
+                    errors.add(ex.getMessage());
+                    quantities.clear();
+                    continue;
+                }
+                if (line == null) {
+                    break;
+                }
+                lineNumber++;
+
+                if (lineNumber == 1 && SockRowValidator.isHeaderRow(line)) {
+                    logger.info("Skipping header row in CSV file");
+                    continue;
+                }
+
+                try {
+                    Sock sock = SockRowValidator.validate(line, lineNumber);
+                    if (errors.isEmpty()) {
+                        SockRowValidator.addQuantity(quantities, sock, lineNumber);
+                    }
+                    rows++;
+                } catch (IllegalArgumentException ex) {
+                    logger.warn("Error processing line {}: {}", lineNumber, ex.getMessage());
+                    errors.add(ex.getMessage());
+                    quantities.clear();
+                }
+            }
+        } catch (IOException | CsvValidationException ex) {
+            logger.error("Error processing CSV file", ex);
+            throw new RuntimeException("Unexpected error.", ex);
+        }
+        return new ParsedRange(quantities, rows, errors);
+    }
+
+    /**
+     * Bytes {@code [start, end)} of the file, whose first record has the given line number.
+     */
+    record Range(long start, long end, int firstLine) {
+    }
+
+    /**
+     * Quantities of the valid rows of a range summed per sock, the number of valid rows and the errors in line
+     * order. Quantities are dropped once the range has an error, since nothing is saved then.
+     */
+    record ParsedRange(Map<SockKey, Integer> quantities, int rows, List<String> errors) {
+    }
+
+    /**
+     * Reads a byte range with positional reads, so all ranges share one channel.
+     */
+    private static final class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.tricketteh.SocksREST.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Stock available to write-behind outcomes: the table quantity plus the deltas not written yet. Every outcome goes
+ * through the buffer while it is enabled; the only changes made directly in the database are CSV imports, which only
+ * add stock and are applied after they commit. Write-behind flushes are skipped because they move stock from the
+ * buffer to the table without changing the available quantity.
+ * <p>
+ * A balance is in use while an income or outcome holds it. Idle balances of socks without pending deltas can be
+ * evicted to bound the memory and are loaded from the table again when needed.
+ */
+@Component
+public class ReservedBalances implements InventoryListener {
+
+    private static final ThreadLocal<Boolean> FLUSHING = ThreadLocal.withInitial(() -> false);
+
+    private final Map<SockKey, Balance> balances = new ConcurrentHashMap<>();
+
+    Balance get(SockKey key) {
+        return balances.get(key);
+    }
+
+    Balance putIfAbsent(SockKey key, Balance balance) {
+        Balance existing = balances.putIfAbsent(key, balance);
+        return existing == null ? balance : existing;
+    }
+
+    int size() {
+        return balances.size();
+    }
+
+    /**
+     * Evicts idle balances until at most {@code maxSize} are left. Must be called while no balance is loaded or
+     * flushed; balances of the socks {@code pending} accepts are kept since the table does not have their deltas yet.
+     */
+    void evict(int maxSize, Predicate<SockKey> pending) {
+        Iterator<Map.Entry<SockKey, Balance>> entries = balances.entrySet().iterator();
+        while (balances.size() > maxSize && entries.hasNext()) {
+            Map.Entry<SockKey, Balance> entry = entries.next();
+            Balance balance = entry.getValue();
+            // Evicted first, so no delta can be appended between the check of pending deltas and the removal.
+            if (!balance.tryEvict()) {
+                continue;
+            }
+            if (pending.test(entry.getKey())) {
+                balance.keep();
+            } else {
+                entries.remove();
+            }
+        }
+    }
+
+    <T> T flushing(Supplier<T> flush) {
+        FLUSHING.set(true);
+        try {
+            return flush.get();
+        } finally {
+            FLUSHING.remove();
+        }
+    }
+
+    @Override
+    public void onInventoryChanged(Map<SockKey, Long> deltas) {
+        if (FLUSHING.get()) {
+            return;
+        }
+        deltas.forEach((key, delta) -> {
+            Balance balance = balances.get(key);
+            if (balance != null) {
+                balance.add(delta);
+            }
+        });
+    }
+
+    static final class Balance {
+
+        private static final int EVICTED = -1;
+
+        private final AtomicLong available;
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile boolean stocked;
+
+        Balance(long available, boolean stocked) {
+            this.available = new AtomicLong(available);
+            this.stocked = stocked;
+        }
+
+        long available() {
+            return available.get();
+        }
+
+        boolean isStocked() {
+            return stocked;
+        }
+
+        long add(long quantity) {
+            stocked = true;
+            return available.addAndGet(quantity);
+        }
+
+        /**
+         * Marks the balance in use, returns {@code false} when it is being evicted and must be looked up again.
+         */
+        boolean acquire() {
+            int current;
+            do {
+                current = users.get();
+                if (current == EVICTED) {
+                    return false;
+                }
+            } while (!users.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            users.decrementAndGet();
+        }
+
+        private boolean tryEvict() {
+            return users.compareAndSet(0, EVICTED);
+        }
+
+        private void keep() {
+            users.set(0);
+        }
+
+        boolean tryReserve(long quantity) {
+            long current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.entity.Sock;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor: the sort key and the id of the last sock of a page.
+ */
+record SockCursor(long id, String sortValue) {
+
+    static SockCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new SockCursor(Long.parseLong(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Incorrect cursor: " + cursor);
+        }
+    }
+
+    static String encode(Sock sock, String sortBy) {
+        return encode(sock.getId(), sortBy.equals("cottonPart") ? sock.getCottonPart().toString() : sock.getColor());
+    }
+
+    static String encode(long id, String sortValue) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + sortValue).getBytes(StandardCharsets.UTF_8));
+    }
+
+    Instant instantValue() {
+        try {
+            return Instant.parse(sortValue);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Incorrect history cursor");
+        }
+    }
+
+    Object sortValue(String sortBy) {
+        if (!sortBy.equals("cottonPart")) {
+            return sortValue;
+        }
+        try {
+            return Double.parseDouble(sortValue);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Incorrect cursor for sorting by cotton part");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.repository.ColorDictionary;
+
+import java.util.Comparator;
+
+/**
+ * Identifies one inventory row: socks of the same color and cotton part are stored together. Colors are
+ * normalized like the color dictionary does, so keys differing only in case are equal.
+ */
+public record SockKey(String color, double cottonPart) {
+
+    public SockKey {
+        color = ColorDictionary.normalize(color);
+    }
+
+    /**
+     * Order in which batched statements touch rows, so concurrent batches lock them in the same sequence.
+     */
+    public static final Comparator<SockKey> LOCK_ORDER =
+            Comparator.comparing(SockKey::color).thenComparingDouble(SockKey::cottonPart);
+}
@@ -0,0 +1,74 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.entity.Sock;
+
+import java.util.Map;
+
+final class SockRowValidator {
+
+    private static final int COLUMNS = 3;
+
+    private SockRowValidator() {
+    }
+
+    static boolean isHeaderRow(String[] line) {
+        return line.length >= COLUMNS &&
+                line[0].equalsIgnoreCase("color") &&
+                line[1].equalsIgnoreCase("cottonPart") &&
+                line[2].equalsIgnoreCase("quantity");
+    }
+
+    static Sock validate(String[] line, int lineNumber) {
+        if (line.length < COLUMNS) {
+            throw new IllegalArgumentException("String " + lineNumber + ": Row must have color, cotton part and quantity.");
+        }
+        String color = validateColor(line[0], lineNumber);
+        double cottonPart = validateCottonPart(line[1], lineNumber);
+        int quantity = validateQuantity(line[2], lineNumber);
+        return new Sock(null, color, cottonPart, quantity);
+    }
+
+    /**
+     * Adds the quantity of a valid row to the quantities summed per sock. The row is rejected when the sum of its
+     * sock no longer fits a quantity.
+     */
+    static void addQuantity(Map<SockKey, Integer> quantities, Sock sock, int lineNumber) {
+        SockKey key = new SockKey(sock.getColor(), sock.getCottonPart());
+        long quantity = (long) quantities.getOrDefault(key, 0) + sock.getQuantity();
+        if (quantity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("String " + lineNumber + ": total quantity of the socks exceeds " + Integer.MAX_VALUE + ".");
+        }
+        quantities.put(key, (int) quantity);
+    }
+
+    static String validateColor(String color, int lineNumber) {
+        if (color == null || color.trim().isEmpty()) {
+            throw new IllegalArgumentException("String " + lineNumber + ": Color cannot be empty.");
+        }
+        return color.trim();
+    }
+
+    static double validateCottonPart(String cottonPartStr, int lineNumber) {
+        try {
+            double cottonPart = Double.parseDouble(cottonPartStr.trim());
+            if (cottonPart < 0 || cottonPart > 100) {
+                throw new IllegalArgumentException("String " + lineNumber + ": Cotton part must be between 0 and 100.");
+            }
+            return cottonPart;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("String " + lineNumber + ": Incorrect cotton part.");
+        }
+    }
+
+    static int validateQuantity(String quantityStr, int lineNumber) {
+        try {
+            int quantity = Integer.parseInt(quantityStr.trim());
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("String " + lineNumber + ": quantity must be greater than 0.");
+            }
+            return quantity;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("String " + lineNumber + ": incorrect quantity.");
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.tricketteh.SocksREST.service;
 
+import com.tricketteh.SocksREST.dto.BulkResultDTO;
 import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.dto.SocksPageDTO;
+import com.tricketteh.SocksREST.dto.StockMovementPageDTO;
 import com.tricketteh.SocksREST.entity.Sock;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface SockService {
 
@@ -12,9 +19,17 @@ public interface SockService {
 
     void socksOutcome(SocksDTO socksDTO);
 
+    BulkResultDTO socksIncomeBulk(List<SocksDTO> items);
+
+    BulkResultDTO socksOutcomeBulk(List<SocksDTO> items);
+
     void update(Long id, SocksDTO socksDTO);
 
-    int getSocksCount(String color, String operation, Double cottonPart);
+    default int getSocksCount(String color, String operation, Double cottonPart) {
+        return getSocksCount(color, operation, cottonPart, null, null);
+    }
+
+    int getSocksCount(String color, String operation, Double cottonPart, Double cottonPartMin, Double cottonPartMax);
 
     List<Sock> getFilteredAndSortedSocks(
             String color,
@@ -25,5 +40,34 @@ public interface SockService {
             String sortBy
     );
 
+    SocksPageDTO getSocksPage(
+            String color,
+            String operation,
+            Double cottonPart,
+            Double cottonPartMin,
+            Double cottonPartMax,
+            String sortBy,
+            String after,
+            Integer limit
+    );
+
+    void streamFilteredAndSortedSocks(
+            String color,
+            String operation,
+            Double cottonPart,
+            Double cottonPartMin,
+            Double cottonPartMax,
+            String sortBy,
+            Consumer<Sock> consumer
+    );
+
+    StockMovementPageDTO getSockHistory(Long id, Instant from, Instant to, String after, Integer limit);
+
     void loadCsvFile(MultipartFile file) throws Exception;
+
+    void loadCsv(InputStream inputStream, ImportProgress progress);
+
+    void loadBatch(InputStream inputStream, BatchFormat format, ImportProgress progress);
+
+    void loadCsvFile(Path file, ImportProgress progress);
 }
@@ -0,0 +1,73 @@
+package com.tricketteh.SocksREST.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Business meters of the socks service. Operation latencies are recorded by {@code @Timed} on the service
+ * methods under {@link #OPERATION_TIMER}, tagged with the operation name.
+ */
+@Component
+public class SocksMetrics {
+
+    public static final String OPERATION_TIMER = "socks.operation";
+
+    private final Counter rowsImported;
+    private final Counter rowsRejected;
+    private final Counter insufficientStock;
+    private final Counter writeBehindParked;
+    private final Set<ImportProgress> activeImports = ConcurrentHashMap.newKeySet();
+
+    public SocksMetrics(MeterRegistry registry) {
+        this.rowsImported = Counter.builder("socks.import.rows")
+                .description("CSV rows saved by imports")
+                .tag("result", "imported")
+                .register(registry);
+        this.rowsRejected = Counter.builder("socks.import.rows")
+                .description("CSV rows rejected by validation")
+                .tag("result", "rejected")
+                .register(registry);
+        this.insufficientStock = Counter.builder("socks.outcome.insufficient.stock")
+                .description("Outcomes refused because the stock was insufficient")
+                .register(registry);
+        this.writeBehindParked = Counter.builder("socks.write.behind.parked")
+                .description("Write-behind deltas that could not be written and wait for an operator")
+                .register(registry);
+        Gauge.builder("socks.import.rows.per.second", activeImports,
+                        imports -> imports.stream().mapToDouble(ImportProgress::getRowsPerSecond).sum())
+                .description("Parsing throughput of the imports in progress")
+                .register(registry);
+        Gauge.builder("socks.import.active", activeImports, Set::size)
+                .description("Imports in progress")
+                .register(registry);
+    }
+
+    public void rowsImported(long rows) {
+        rowsImported.increment(rows);
+    }
+
+    public void rowsRejected(long rows) {
+        rowsRejected.increment(rows);
+    }
+
+    public void insufficientStock() {
+        insufficientStock.increment();
+    }
+
+    public void writeBehindParked() {
+        writeBehindParked.increment();
+    }
+
+    public void importStarted(ImportProgress progress) {
+        activeImports.add(progress);
+    }
+
+    public void importFinished(ImportProgress progress) {
+        activeImports.remove(progress);
+    }
+}
@@ -0,0 +1,57 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.StockMovement;
+import com.tricketteh.SocksREST.repository.StockMovementRepository;
+import com.tricketteh.SocksREST.repository.StockMovementType;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Appends every change of the socks table to the stock movement ledger within the transaction making it.
+ */
+@Component
+public class StockLedger {
+
+    private final StockMovementRepository stockMovementRepository;
+    private final boolean enabled;
+
+    public StockLedger(StockMovementRepository stockMovementRepository, SocksProperties properties) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.enabled = properties.getLedger().isEnabled();
+    }
+
+    public void record(StockMovementType type, Long sockId, String color, double cottonPart, long delta) {
+        if (enabled && delta != 0) {
+            stockMovementRepository.insertAll(List.of(new StockMovement(null, sockId, type, color, cottonPart, delta, null)));
+        }
+    }
+
+    /**
+     * Records one movement per sock, the quantity of each sock being its delta.
+     */
+    public void recordAll(StockMovementType type, Collection<Sock> deltas) {
+        if (!enabled || deltas.isEmpty()) {
+            return;
+        }
+        stockMovementRepository.insertAll(deltas.stream()
+                .filter(sock -> sock.getQuantity() != 0)
+                .map(sock -> new StockMovement(null, null, type, sock.getColor(), sock.getCottonPart(), sock.getQuantity(), null))
+                .toList());
+    }
+
+    public List<StockMovement> history(long sockId, Instant from, Instant to, Instant afterCreatedAt, Long afterId, int limit) {
+        return stockMovementRepository.findHistory(sockId, from, to, afterCreatedAt, afterId, limit);
+    }
+
+    /**
+     * Time before which the history is final: no movement older than it can still be committed.
+     */
+    public Instant settledBefore() {
+        return stockMovementRepository.findSettledBefore();
+    }
+}
@@ -0,0 +1,86 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.StockMovementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keeps monthly ledger partitions created ahead of time, so movements never land in the default partition,
+ * and drops the partitions that fell out of the retention period. Movements that landed there anyway, while
+ * maintenance did not run, are moved to their month when its partition is created.
+ */
+@Component
+public class StockMovementPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMovementPartitions.class);
+
+    private final StockMovementRepository stockMovementRepository;
+    private final SocksProperties.Ledger properties;
+    private final Clock clock;
+
+    public StockMovementPartitions(StockMovementRepository stockMovementRepository, SocksProperties properties) {
+        this(stockMovementRepository, properties, Clock.systemUTC());
+    }
+
+    StockMovementPartitions(StockMovementRepository stockMovementRepository, SocksProperties properties, Clock clock) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.properties = properties.getLedger();
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${socks.ledger.maintenance-cron:0 0 3 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        YearMonth currentMonth = YearMonth.now(clock);
+        for (int i = 0; i <= properties.getPartitionsAhead(); i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            try {
+                int moved = stockMovementRepository.createPartition(month);
+                if (moved > 0) {
+                    logger.info("Created ledger partition of {} with {} movements from the default partition", month, moved);
+                }
+            } catch (DataAccessException ex) {
+                logger.warn("Failed to create ledger partition of {}, its movements go to the default partition", month, ex);
+            }
+        }
+
+        Period retention = properties.getRetention();
+        if (retention == null) {
+            return;
+        }
+        YearMonth oldestKept = YearMonth.from(currentMonth.atDay(1).minus(retention));
+        for (String partition : stockMovementRepository.findPartitions()) {
+            YearMonth month = partitionMonth(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                logger.info("Dropping ledger partition {} older than {}", partition, retention);
+                stockMovementRepository.dropPartition(month);
+            }
+        }
+    }
+
+    private static YearMonth partitionMonth(String partition) {
+        if (!partition.startsWith(StockMovementRepository.PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(StockMovementRepository.PARTITION_PREFIX.length()),
+                    StockMovementRepository.PARTITION_MONTH);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
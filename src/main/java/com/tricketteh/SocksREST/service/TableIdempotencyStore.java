@@ -0,0 +1,75 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.IdempotencyKey;
+import com.tricketteh.SocksREST.repository.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Idempotency-Keys in the {@code idempotency_keys} table, so a retry is recognized by whichever instance it
+ * reaches. Expired keys are deleted periodically.
+ */
+@Component
+@ConditionalOnProperty(prefix = "socks.idempotency", name = "store", havingValue = "table")
+public class TableIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableIdempotencyStore.class);
+
+    private final IdempotencyKeyRepository repository;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+
+    public TableIdempotencyStore(IdempotencyKeyRepository repository, SocksProperties properties) {
+        this.repository = repository;
+        this.ttl = properties.getIdempotency().getTtl();
+        this.lockTimeout = properties.getIdempotency().getLockTimeout();
+    }
+
+    @Override
+    public IdempotencyClaim claim(String key, String fingerprint) {
+        UUID token = UUID.randomUUID();
+        if (repository.claim(key, fingerprint, token, lockTimeout, ttl)) {
+            return IdempotencyClaim.acquired(token);
+        }
+        Optional<IdempotencyKey> row = repository.find(key);
+        if (row.isEmpty()) {
+            // Released or purged since the claim, the caller claims again.
+            return IdempotencyClaim.IN_PROGRESS;
+        }
+        IdempotencyKey existing = row.get();
+        if (!existing.fingerprint().equals(fingerprint)) {
+            return IdempotencyClaim.MISMATCH;
+        }
+        if (existing.status() == null) {
+            return IdempotencyClaim.IN_PROGRESS;
+        }
+        return IdempotencyClaim.completed(new IdempotentResponse(existing.status(), existing.location(), existing.body()));
+    }
+
+    @Override
+    public void complete(String key, UUID token, IdempotentResponse response) {
+        repository.complete(key, token, response.status(), response.location(), response.body());
+    }
+
+    @Override
+    public void release(String key, UUID token) {
+        repository.release(key, token);
+    }
+
+    @Scheduled(fixedDelayString = "${socks.idempotency.purge-interval:PT1M}",
+            initialDelayString = "${socks.idempotency.purge-interval:PT1M}")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(ttl);
+        if (deleted > 0) {
+            logger.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+}
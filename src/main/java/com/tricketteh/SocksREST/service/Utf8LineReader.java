@@ -0,0 +1,120 @@
+package com.tricketteh.SocksREST.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes UTF-8 one line at a time and rejects malformed bytes instead of replacing them. A line that is not valid
+ * UTF-8 is reported with {@link IllegalArgumentException} carrying its line number, and reading goes on with the
+ * next line. Lines are split on the {@code \n} byte, which never occurs inside a multibyte sequence.
+ */
+final class Utf8LineReader extends Reader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private byte[] bytes = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private CharBuffer line = CharBuffer.allocate(0);
+    private int lineNumber;
+
+    Utf8LineReader(InputStream inputStream) {
+        this(inputStream, 1);
+    }
+
+    /**
+     * Reads input whose first line has the given number in error messages.
+     */
+    Utf8LineReader(InputStream inputStream, int firstLine) {
+        this.inputStream = inputStream;
+        this.lineNumber = firstLine - 1;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!line.hasRemaining() && !decodeNextLine()) {
+            return -1;
+        }
+        int read = Math.min(length, line.remaining());
+        line.get(buffer, offset, read);
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean decodeNextLine() throws IOException {
+        int end = findLineEnd();
+        if (end == position) {
+            return false;
+        }
+        int start = position;
+        position = end;
+        lineNumber++;
+
+        if (line.capacity() < end - start) {
+            line = CharBuffer.allocate(Math.max(end - start, 2 * line.capacity()));
+        }
+        line.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(ByteBuffer.wrap(bytes, start, end - start), line, true);
+        if (!result.isError()) {
+            result = decoder.flush(line);
+        }
+        if (result.isError()) {
+            line.clear().flip();
+            throw new IllegalArgumentException("String " + lineNumber + ": Invalid UTF-8 byte sequence.");
+        }
+        line.flip();
+        return true;
+    }
+
+    /**
+     * Returns the end of the next line, after its {@code \n}, reading more input while the buffer does not hold it.
+     */
+    private int findLineEnd() throws IOException {
+        int scanned = position;
+        while (true) {
+            for (int i = scanned; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    return i + 1;
+                }
+            }
+            if (endOfInput) {
+                return limit;
+            }
+            scanned = limit - position;
+            if (position > 0) {
+                System.arraycopy(bytes, position, bytes, 0, limit - position);
+                limit -= position;
+                position = 0;
+            } else if (limit == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+            int read = inputStream.read(bytes, limit, bytes.length - limit);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+}
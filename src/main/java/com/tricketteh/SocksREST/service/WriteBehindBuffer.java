@@ -0,0 +1,441 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.ParkedDelta;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import com.tricketteh.SocksREST.repository.StockMovementType;
+import com.tricketteh.SocksREST.repository.WriteBehindSegmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind mode of income and outcome. Accepted deltas are journaled, summed per sock in memory and
+ * written to the table as one batched upsert every flush interval or once enough deltas are pending.
+ * <p>
+ * Outcomes reserve stock from {@link ReservedBalances}, so they are refused exactly when the table plus the pending
+ * deltas cannot cover them. This holds while this instance is the only one writing in write-behind mode.
+ * <p>
+ * Balances of socks without pending deltas are evicted after a flush once there are more than
+ * {@code max-balances} of them.
+ * <p>
+ * Journal segments that were not written to the table are replayed at startup. Each segment is marked in the flush
+ * transaction that applies it, so a segment is never applied twice.
+ * <p>
+ * A batch the database refuses because of its data, rather than being unavailable, is not retried as a whole: its
+ * deltas are parked in the database and written one sock at a time. Those that still fail stay parked, are reported
+ * and no longer count in the available stock, so a single bad delta never holds back the others.
+ */
+@Component
+public class WriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private final SockRepository sockRepository;
+    private final WriteBehindSegmentRepository segmentRepository;
+    private final InventoryChanges inventoryChanges;
+    private final InventorySnapshots inventorySnapshots;
+    private final StockLedger stockLedger;
+    private final ReservedBalances balances;
+    private final SocksMetrics socksMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final SocksProperties.WriteBehind properties;
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Lock flushLock = new ReentrantLock();
+    private final AtomicInteger pendingDeltas = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+    private WriteBehindJournal journal;
+    private volatile Batch current;
+    private boolean closed;
+    private Pending failed;
+    private boolean parked;
+
+    public WriteBehindBuffer(SockRepository sockRepository,
+                             WriteBehindSegmentRepository segmentRepository,
+                             InventoryChanges inventoryChanges,
+                             InventorySnapshots inventorySnapshots,
+                             StockLedger stockLedger,
+                             ReservedBalances balances,
+                             SocksMetrics socksMetrics,
+                             PlatformTransactionManager transactionManager,
+                             SocksProperties properties) {
+        this.sockRepository = sockRepository;
+        this.segmentRepository = segmentRepository;
+        this.inventoryChanges = inventoryChanges;
+        this.inventorySnapshots = inventorySnapshots;
+        this.stockLedger = stockLedger;
+        this.balances = balances;
+        this.socksMetrics = socksMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties.getWriteBehind();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        journal = new WriteBehindJournal(properties.getJournalDirectory(), properties.isJournalSync());
+        recover();
+        // Parked deltas a crash left unwritten are written by the first flush.
+        parked = true;
+        current = new Batch(journal.open());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "socks-write-behind"));
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Write-behind enabled, flushing every {} ms", interval);
+    }
+
+    /**
+     * Accepts an income and returns the stock available after it.
+     */
+    public Sock income(String color, double cottonPart, int quantity) {
+        SockKey key = new SockKey(color, cottonPart);
+        ReservedBalances.Balance balance = acquire(key);
+        try {
+            append(key, quantity);
+            return new Sock(null, key.color(), cottonPart, Math.toIntExact(balance.add(quantity)));
+        } finally {
+            balance.release();
+        }
+    }
+
+    /**
+     * Accepts an outcome when the available stock covers it.
+     */
+    public BulkItemStatus outcome(String color, double cottonPart, int quantity) {
+        SockKey key = new SockKey(color, cottonPart);
+        ReservedBalances.Balance balance = acquire(key);
+        try {
+            if (!balance.tryReserve(quantity)) {
+                return balance.isStocked() ? BulkItemStatus.INSUFFICIENT_STOCK : BulkItemStatus.NOT_FOUND;
+            }
+            try {
+                append(key, -quantity);
+            } catch (RuntimeException ex) {
+                // append throws only when the delta was not journaled.
+                balance.add(quantity);
+                throw ex;
+            }
+            return BulkItemStatus.APPLIED;
+        } finally {
+            balance.release();
+        }
+    }
+
+    /**
+     * Writes the pending deltas to the table. Deltas of a flush that failed because the database was unavailable
+     * are kept and retried by the next one.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pendingDeltas.get() > 0 || failed != null) {
+                Pending pending = failed == null ? new Pending() : failed;
+                pending.add(swap());
+                failed = null;
+                if (!write(pending)) {
+                    failed = pending;
+                    return;
+                }
+                logger.debug("Wrote {} buffered socks", pending.deltas.size());
+            }
+            if (parked && !writeParked()) {
+                return;
+            }
+            if (balances.size() > properties.getMaxBalances()) {
+                Batch next = current;
+                balances.evict(properties.getMaxBalances(), next.deltas::containsKey);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        swapLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        flushLock.lock();
+        try {
+            current.segment.close();
+            if (pendingDeltas.get() == 0) {
+                journal.delete(current.segment.id());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            logger.error("Write-behind flush failed", ex);
+        }
+    }
+
+    private ReservedBalances.Balance acquire(SockKey key) {
+        while (true) {
+            ReservedBalances.Balance balance = balance(key);
+            if (balance.acquire()) {
+                return balance;
+            }
+            // Being evicted by a flush: the next lookup waits for it and loads the sock again.
+            Thread.onSpinWait();
+        }
+    }
+
+    private ReservedBalances.Balance balance(SockKey key) {
+        ReservedBalances.Balance balance = balances.get(key);
+        if (balance != null) {
+            return balance;
+        }
+        // Loading under the flush lock guarantees no flush is between the buffer and the table, and registering the
+        // balance inside the snapshot that reads the table gives it every direct write committed after the read.
+        flushLock.lock();
+        try {
+            return transactionTemplate.execute(status -> inventorySnapshots.snapshot(() -> {
+                Integer quantity = sockRepository.findQuantity(key.color(), key.cottonPart());
+                return balances.putIfAbsent(key, new ReservedBalances.Balance(
+                        quantity == null ? 0 : quantity, quantity != null));
+            }));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void append(SockKey key, long delta) {
+        swapLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Write-behind buffer is shut down");
+            }
+            Batch batch = current;
+            batch.segment.append(key, delta);
+            batch.deltas.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to journal socks delta", ex);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (pendingDeltas.incrementAndGet() >= properties.getMaxPendingDeltas()
+                && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException ex) {
+                // Shutting down: the delta is journaled and written by the final flush or the replay.
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private Batch swap() {
+        Batch next;
+        try {
+            next = new Batch(journal.open());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open write-behind journal segment", ex);
+        }
+        Batch previous;
+        swapLock.writeLock().lock();
+        try {
+            previous = current;
+            current = next;
+            pendingDeltas.set(0);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        try {
+            previous.segment.close();
+        } catch (IOException ex) {
+            logger.warn("Failed to close write-behind journal segment {}", previous.segment.id(), ex);
+        }
+        return previous;
+    }
+
+    /**
+     * Writes a batch and retires its journal segments. Returns {@code false} when the database was unavailable and
+     * the batch must be written again; a batch refused because of its data is parked instead.
+     */
+    private boolean write(Pending pending) {
+        try {
+            balances.flushing(() -> transactionTemplate.execute(status -> apply(pending)));
+        } catch (RuntimeException ex) {
+            if (!isRefused(ex)) {
+                logger.error("Failed to write {} buffered socks, retrying with the next flush", pending.deltas.size(), ex);
+                return false;
+            }
+            logger.error("Database refused {} buffered socks, writing them one by one", pending.deltas.size(), ex);
+            List<ParkedDelta> deltas = new ArrayList<>(pending.deltas.size());
+            pending.deltas.forEach((key, delta) -> deltas.add(new ParkedDelta(null, key.color(), key.cottonPart(), delta)));
+            try {
+                transactionTemplate.execute(status -> {
+                    segmentRepository.park(deltas);
+                    segmentRepository.markFlushed(pending.segmentIds);
+                    return null;
+                });
+            } catch (RuntimeException parkEx) {
+                logger.error("Failed to park {} buffered socks, retrying with the next flush", deltas.size(), parkEx);
+                return false;
+            }
+            parked = true;
+        }
+        pending.segmentIds.forEach(journal::delete);
+        segmentRepository.delete(pending.segmentIds);
+        return true;
+    }
+
+    /**
+     * Writes the parked deltas one sock at a time. A delta the database refuses stays parked with its failure and
+     * is taken out of the available stock. Returns {@code false} when the database was unavailable.
+     */
+    private boolean writeParked() {
+        for (ParkedDelta delta : segmentRepository.findParked()) {
+            SockKey key = new SockKey(delta.color(), delta.cottonPart());
+            Pending single = new Pending();
+            single.add(key, delta.delta());
+            try {
+                balances.flushing(() -> transactionTemplate.execute(status -> {
+                    apply(single);
+                    segmentRepository.unpark(delta.id());
+                    return null;
+                }));
+            } catch (RuntimeException ex) {
+                if (!isRefused(ex)) {
+                    logger.error("Failed to write parked socks, retrying with the next flush", ex);
+                    return false;
+                }
+                segmentRepository.fail(delta.id(), String.valueOf(ex));
+                ReservedBalances.Balance balance = balances.get(key);
+                if (balance != null) {
+                    balance.add(-delta.delta());
+                }
+                socksMetrics.writeBehindParked();
+                logger.error("Parked a delta of {} for {} socks with cotton part {} that cannot be written: {}",
+                        delta.delta(), key.color(), key.cottonPart(), ex.getMessage());
+            }
+        }
+        parked = false;
+        return true;
+    }
+
+    /**
+     * Returns whether the database refused the deltas themselves, such as a quantity going negative or out of range,
+     * so writing them again as they are cannot succeed.
+     */
+    private static boolean isRefused(RuntimeException ex) {
+        return ex instanceof NonTransientDataAccessException
+                || ex instanceof IllegalStateException
+                || ex instanceof ArithmeticException;
+    }
+
+    private Void apply(Pending pending) {
+        List<Sock> socks = new ArrayList<>(pending.deltas.size());
+        pending.deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                socks.add(new Sock(null, key.color(), key.cottonPart(), Math.toIntExact(delta)));
+            }
+        });
+        if (!socks.isEmpty()) {
+            sockRepository.upsertIncomeAll(socks);
+            stockLedger.recordAll(StockMovementType.WRITE_BEHIND, socks);
+        }
+        socks.forEach(sock -> inventoryChanges.record(sock.getColor(), sock.getCottonPart(), sock.getQuantity()));
+        if (!pending.segmentIds.isEmpty()) {
+            segmentRepository.markFlushed(pending.segmentIds);
+        }
+        return null;
+    }
+
+    private void recover() throws IOException {
+        List<String> segments = journal.segments();
+        if (segments.isEmpty()) {
+            return;
+        }
+        Set<String> flushed = segmentRepository.findFlushed(segments);
+        Pending pending = new Pending();
+        for (String segment : segments) {
+            if (flushed.contains(segment)) {
+                continue;
+            }
+            journal.read(segment).forEach(pending::add);
+            pending.segmentIds.add(segment);
+        }
+        logger.info("Replaying {} write-behind journal segment(s)", pending.segmentIds.size());
+        if (!pending.segmentIds.isEmpty() && !write(pending)) {
+            throw new IllegalStateException("Failed to replay the write-behind journal");
+        }
+        segments.forEach(journal::delete);
+        segmentRepository.delete(segments);
+    }
+
+    private static final class Batch {
+
+        private final WriteBehindJournal.Segment segment;
+        private final Map<SockKey, LongAdder> deltas = new ConcurrentHashMap<>();
+
+        private Batch(WriteBehindJournal.Segment segment) {
+            this.segment = segment;
+        }
+    }
+
+    private static final class Pending {
+
+        private final List<String> segmentIds = new ArrayList<>();
+        private final Map<SockKey, Long> deltas = new TreeMap<>(SockKey.LOCK_ORDER);
+
+        private void add(Batch batch) {
+            segmentIds.add(batch.segment.id());
+            batch.deltas.forEach((key, delta) -> add(key, delta.sum()));
+        }
+
+        private void add(SockKey key, long delta) {
+            deltas.merge(key, delta, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tricketteh.SocksREST.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Segment files holding the deltas accepted by {@link WriteBehindBuffer} until they reach the database.
+ * Every record is length-prefixed, so a record cut short by a crash is detected and dropped on replay.
+ */
+final class WriteBehindJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindJournal.class);
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean sync;
+
+    WriteBehindJournal(Path directory, boolean sync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.sync = sync;
+    }
+
+    Segment open() throws IOException {
+        String id = UUID.randomUUID().toString();
+        FileChannel channel = FileChannel.open(path(id), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return new Segment(id, channel, sync);
+    }
+
+    List<String> segments() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .forEach(name -> ids.add(name.substring(0, name.length() - SUFFIX.length())));
+        }
+        return ids;
+    }
+
+    Map<SockKey, Long> read(String id) throws IOException {
+        Map<SockKey, Long> deltas = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path(id))))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    payload = new byte[in.readInt()];
+                    in.readFully(payload);
+                } catch (EOFException ex) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                deltas.merge(new SockKey(record.readUTF(), record.readDouble()), record.readLong(), Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    void delete(String id) {
+        try {
+            Files.deleteIfExists(path(id));
+        } catch (IOException ex) {
+            logger.warn("Failed to delete write-behind journal segment {}", id, ex);
+        }
+    }
+
+    private Path path(String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+
+    static final class Segment implements Closeable {
+
+        private final String id;
+        private final FileChannel channel;
+        private final boolean sync;
+        // Appends write and may force the file, so they hold a lock instead of pinning a virtual thread in synchronized.
+        private final Lock appendLock = new ReentrantLock();
+
+        private Segment(String id, FileChannel channel, boolean sync) {
+            this.id = id;
+            this.channel = channel;
+            this.sync = sync;
+        }
+
+        String id() {
+            return id;
+        }
+
+        void append(SockKey key, long delta) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeUTF(key.color());
+            out.writeDouble(key.cottonPart());
+            out.writeLong(delta);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            buffer.putInt(0, buffer.remaining() - Integer.BYTES);
+            appendLock.lock();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (sync) {
+                    channel.force(false);
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
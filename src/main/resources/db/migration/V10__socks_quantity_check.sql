@@ -0,0 +1,4 @@
+-- Stripes hold part of the stock of striped socks, so a delta applied to the wrong row could drive it negative
+-- while the sum stays correct. Rows are checked from now on; existing rows are not revalidated.
+ALTER TABLE public.socks
+    ADD CONSTRAINT socks_quantity_non_negative CHECK (quantity >= 0) NOT VALID;
@@ -0,0 +1,3 @@
+-- Token of the claim holding the key; complete and release only apply to the claim that still holds it.
+ALTER TABLE public.idempotency_keys
+    ADD COLUMN claim_token UUID;
@@ -0,0 +1,11 @@
+-- Write-behind deltas that could not be written with their batch. Rows without a failure are written one by one
+-- by the next flush; rows with a failure could not be written on their own and wait for an operator.
+CREATE TABLE public.socks_write_behind_parked
+(
+    id          BIGSERIAL PRIMARY KEY,
+    color       VARCHAR(255)     NOT NULL,
+    cotton_part DOUBLE PRECISION NOT NULL,
+    delta       BIGINT           NOT NULL,
+    failure     TEXT,
+    parked_at   TIMESTAMP        NOT NULL DEFAULT now()
+);
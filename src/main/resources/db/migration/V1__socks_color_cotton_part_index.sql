@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS idx_socks_lower_color_cotton_part
+    ON public.socks (LOWER(color), cotton_part) INCLUDE (quantity);
@@ -0,0 +1,23 @@
+UPDATE public.socks
+SET quantity = 0
+WHERE quantity IS NULL;
+
+UPDATE public.socks s
+SET quantity = merged.quantity
+FROM (SELECT MIN(id) AS id, SUM(quantity) AS quantity
+      FROM public.socks
+      GROUP BY color, cotton_part
+      HAVING COUNT(*) > 1) merged
+WHERE s.id = merged.id;
+
+DELETE
+FROM public.socks s
+    USING public.socks kept
+WHERE s.color = kept.color
+  AND s.cotton_part = kept.cotton_part
+  AND s.id > kept.id;
+
+ALTER TABLE public.socks
+    ALTER COLUMN quantity SET DEFAULT 0,
+    ALTER COLUMN quantity SET NOT NULL,
+    ADD CONSTRAINT uk_socks_color_cotton_part UNIQUE (color, cotton_part);
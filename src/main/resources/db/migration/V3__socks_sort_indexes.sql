@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_socks_color_id
+    ON public.socks (color, id);
+
+CREATE INDEX IF NOT EXISTS idx_socks_cotton_part_id
+    ON public.socks (cotton_part, id);
@@ -0,0 +1,5 @@
+CREATE TABLE public.socks_write_behind_segments
+(
+    segment_id VARCHAR(64) PRIMARY KEY,
+    flushed_at TIMESTAMP   NOT NULL DEFAULT now()
+);
@@ -0,0 +1,33 @@
+CREATE TABLE public.stock_movements
+(
+    id            BIGSERIAL,
+    sock_id       BIGINT           NOT NULL,
+    movement_type VARCHAR(16)      NOT NULL,
+    color         VARCHAR(255)     NOT NULL,
+    cotton_part   DOUBLE PRECISION NOT NULL,
+    delta         BIGINT           NOT NULL,
+    created_at    TIMESTAMPTZ      NOT NULL DEFAULT now(),
+    PRIMARY KEY (created_at, id)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_stock_movements_sock_created_at
+    ON public.stock_movements (sock_id, created_at, id);
+
+CREATE TABLE public.stock_movements_default PARTITION OF public.stock_movements DEFAULT;
+
+DO
+$$
+    DECLARE
+        month_start TIMESTAMP;
+    BEGIN
+        FOR i IN 0..1
+            LOOP
+                month_start := date_trunc('month', now() AT TIME ZONE 'UTC') + make_interval(months => i);
+                EXECUTE format(
+                        'CREATE TABLE public.%I PARTITION OF public.stock_movements FOR VALUES FROM (%L) TO (%L)',
+                        'stock_movements_' || to_char(month_start, 'YYYY_MM'),
+                        month_start AT TIME ZONE 'UTC',
+                        (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+            END LOOP;
+    END
+$$;
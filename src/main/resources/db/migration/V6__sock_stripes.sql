@@ -0,0 +1,14 @@
+CREATE TABLE public.sock_stripes
+(
+    sock_id  BIGINT   NOT NULL REFERENCES public.socks (id),
+    slot     SMALLINT NOT NULL,
+    quantity INT      NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    PRIMARY KEY (sock_id, slot)
+) WITH (fillfactor = 50);
+
+CREATE VIEW public.socks_inventory AS
+SELECT s.id, s.color, s.cotton_part, s.quantity + COALESCE(st.quantity, 0) AS quantity
+FROM public.socks s
+         LEFT JOIN (SELECT sock_id, SUM(quantity) AS quantity
+                    FROM public.sock_stripes
+                    GROUP BY sock_id) st ON st.sock_id = s.id;
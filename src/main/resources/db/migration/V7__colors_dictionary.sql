@@ -0,0 +1,95 @@
+CREATE TABLE public.colors
+(
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE CHECK (name = LOWER(name))
+);
+
+-- Stripes are folded into their socks before merging; the application recreates the configured slots at startup.
+DROP VIEW public.socks_inventory;
+
+UPDATE public.socks s
+SET quantity = s.quantity + st.quantity
+FROM (SELECT sock_id, SUM(quantity) AS quantity
+      FROM public.sock_stripes
+      GROUP BY sock_id) st
+WHERE s.id = st.sock_id;
+
+DELETE
+FROM public.sock_stripes;
+
+-- Socks whose colors differ only in case become one sock, keeping the lowest id.
+CREATE TEMPORARY TABLE sock_merges ON COMMIT DROP AS
+SELECT id, MIN(id) OVER (PARTITION BY LOWER(color), cotton_part) AS kept_id
+FROM public.socks;
+
+UPDATE public.socks s
+SET quantity = merged.quantity
+FROM (SELECT m.kept_id, SUM(s.quantity) AS quantity
+      FROM public.socks s
+               JOIN sock_merges m ON m.id = s.id
+      GROUP BY m.kept_id
+      HAVING COUNT(*) > 1) merged
+WHERE s.id = merged.kept_id;
+
+UPDATE public.stock_movements mv
+SET sock_id = m.kept_id
+FROM sock_merges m
+WHERE mv.sock_id = m.id
+  AND m.id <> m.kept_id;
+
+DELETE
+FROM public.socks s
+    USING sock_merges m
+WHERE s.id = m.id
+  AND m.id <> m.kept_id;
+
+INSERT INTO public.colors (name)
+SELECT LOWER(color)
+FROM public.socks
+UNION
+SELECT LOWER(color)
+FROM public.stock_movements
+ORDER BY 1;
+
+-- Dropping the color column drops the unique constraint and the indexes built on it.
+ALTER TABLE public.socks
+    ADD COLUMN color_id INT REFERENCES public.colors (id);
+
+UPDATE public.socks s
+SET color_id = c.id
+FROM public.colors c
+WHERE c.name = LOWER(s.color);
+
+ALTER TABLE public.socks
+    ALTER COLUMN color_id SET NOT NULL,
+    DROP COLUMN color;
+
+CREATE UNIQUE INDEX uk_socks_color_id_cotton_part
+    ON public.socks (color_id, cotton_part) INCLUDE (quantity);
+
+ALTER TABLE public.stock_movements
+    ADD COLUMN color_id INT;
+
+UPDATE public.stock_movements mv
+SET color_id = c.id
+FROM public.colors c
+WHERE c.name = LOWER(mv.color);
+
+ALTER TABLE public.stock_movements
+    ALTER COLUMN color_id SET NOT NULL,
+    DROP COLUMN color;
+
+-- Left joins on the primary key of colors are removed by the planner when the color name is not used,
+-- so counts and filters by color id read the socks table only.
+CREATE VIEW public.socks_with_color AS
+SELECT s.id, s.color_id, c.name AS color, s.cotton_part, s.quantity
+FROM public.socks s
+         LEFT JOIN public.colors c ON c.id = s.color_id;
+
+CREATE VIEW public.socks_inventory AS
+SELECT s.id, s.color_id, c.name AS color, s.cotton_part, s.quantity + COALESCE(st.quantity, 0) AS quantity
+FROM public.socks s
+         LEFT JOIN public.colors c ON c.id = s.color_id
+         LEFT JOIN (SELECT sock_id, SUM(quantity) AS quantity
+                    FROM public.sock_stripes
+                    GROUP BY sock_id) st ON st.sock_id = s.id;
@@ -0,0 +1,12 @@
+CREATE TABLE public.idempotency_keys
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    fingerprint     VARCHAR(128) NOT NULL,
+    status          SMALLINT,
+    location        TEXT,
+    body            BYTEA,
+    created_at      TIMESTAMP    NOT NULL DEFAULT now(),
+    locked_until    TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX idempotency_keys_created_at_idx ON public.idempotency_keys (created_at);
@@ -0,0 +1,4 @@
+-- Replaces the (color, id) index dropped with the color column: listings sorted by color read the socks of
+-- each color in id order.
+CREATE INDEX IF NOT EXISTS idx_socks_color_id_id
+    ON public.socks (color_id, id);
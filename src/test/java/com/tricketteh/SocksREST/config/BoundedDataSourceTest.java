@@ -0,0 +1,56 @@
+package com.tricketteh.SocksREST.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    private BoundedDataSource boundedDataSource;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(dataSource.getConnection()).thenReturn(connection);
+        boundedDataSource = new BoundedDataSource(dataSource, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void testGetConnection_WaitsForClosedConnection() throws Exception {
+        Connection first = boundedDataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> boundedDataSource.getConnection());
+
+        first.close();
+        first.close();
+        assertEquals(1, boundedDataSource.availablePermits());
+        boundedDataSource.getConnection();
+        assertEquals(0, boundedDataSource.availablePermits());
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    public void testGetConnection_ReleasesPermitWhenPoolFails() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        assertThrows(SQLException.class, () -> boundedDataSource.getConnection());
+
+        assertEquals(1, boundedDataSource.availablePermits());
+    }
+}
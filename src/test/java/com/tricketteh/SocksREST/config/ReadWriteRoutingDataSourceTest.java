@@ -0,0 +1,103 @@
+package com.tricketteh.SocksREST.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String SERVER_PORT = "SELECT inet_server_port()";
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+
+    @BeforeAll
+    public static void startDatabases() throws Exception {
+        primary = EmbeddedPostgres.start();
+        replica = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    public static void stopDatabases() throws Exception {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToReplica() {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primary.getPostgresDatabase(), replica.getPostgresDatabase(), Duration.ofSeconds(30)));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transactionTemplate.setReadOnly(true);
+        assertEquals(replica.getPort(), serverPort(transactionTemplate, jdbcTemplate));
+        transactionTemplate.setReadOnly(false);
+        assertEquals(primary.getPort(), serverPort(transactionTemplate, jdbcTemplate));
+        assertEquals(primary.getPort(), (int) jdbcTemplate.queryForObject(SERVER_PORT, Integer.class));
+    }
+
+    @Test
+    public void testReadsFallBackToPrimaryWhileReplicaIsDown() throws Exception {
+        DataSource failingReplica = mock(DataSource.class);
+        when(failingReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        MutableClock clock = new MutableClock();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primary.getPostgresDatabase(), failingReplica, Duration.ofSeconds(30), clock));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(true);
+
+        assertEquals(primary.getPort(), serverPort(transactionTemplate, jdbcTemplate));
+        assertEquals(primary.getPort(), serverPort(transactionTemplate, jdbcTemplate));
+        verify(failingReplica, times(1)).getConnection();
+
+        clock.advance(Duration.ofSeconds(31));
+        transactionTemplate.execute(status -> jdbcTemplate.queryForObject(SERVER_PORT, Integer.class));
+        verify(failingReplica, times(2)).getConnection();
+    }
+
+    private static int serverPort(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+        return transactionTemplate.<Integer>execute(status -> jdbcTemplate.queryForObject(SERVER_PORT, Integer.class));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-10-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.tricketteh.SocksREST.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.service.InMemoryIdempotencyStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotentRequestsTest {
+
+    private final SocksDTO socksDTO = new SocksDTO("red", 50.0, 10);
+
+    private SocksProperties properties;
+
+    private IdempotentRequests idempotentRequests;
+
+    private AtomicInteger executions;
+
+    @BeforeEach
+    public void setup() {
+        properties = new SocksProperties();
+        idempotentRequests = new IdempotentRequests(new InMemoryIdempotencyStore(properties), new ObjectMapper(), properties);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    public void testExecute_ReplaysFirstResponse() {
+        ResponseEntity<Sock> first = idempotentRequests.execute("key-1", "income", socksDTO, Sock.class, this::income);
+        ResponseEntity<Sock> replayed = idempotentRequests.execute("key-1", "income", socksDTO, Sock.class, this::income);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, replayed.getStatusCode());
+        assertEquals(first.getHeaders().getLocation(), replayed.getHeaders().getLocation());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotentRequests.REPLAYED_HEADER));
+        assertEquals(1L, replayed.getBody().getId());
+        assertEquals(10, replayed.getBody().getQuantity());
+    }
+
+    @Test
+    public void testExecute_WithoutKeyAlwaysExecutes() {
+        idempotentRequests.execute(null, "income", socksDTO, Sock.class, this::income);
+        idempotentRequests.execute(null, "income", socksDTO, Sock.class, this::income);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testExecute_RejectsKeyReusedForAnotherRequest() {
+        idempotentRequests.execute("key-1", "income", socksDTO, Sock.class, this::income);
+
+        assertThrows(IllegalArgumentException.class, () -> idempotentRequests.execute(
+                "key-1", "income", new SocksDTO("red", 50.0, 11), Sock.class, this::income));
+        assertThrows(IllegalArgumentException.class, () -> idempotentRequests.execute(
+                "key-1", "outcome", socksDTO, Sock.class, this::income));
+        assertThrows(IllegalArgumentException.class, () -> idempotentRequests.execute(
+                " ", "income", socksDTO, Sock.class, this::income));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void testExecute_FailedRequestIsExecutedAgain() {
+        assertThrows(NoSuchElementException.class, () -> idempotentRequests.execute("key-1", "outcome", socksDTO, Sock.class, () -> {
+            executions.incrementAndGet();
+            throw new NoSuchElementException("Socks not found");
+        }));
+
+        idempotentRequests.execute("key-1", "outcome", socksDTO, Sock.class, this::income);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testExecute_ConcurrentReplaysExecuteOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<ResponseEntity<Sock>>> responses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return idempotentRequests.execute("key-1", "income", socksDTO, Sock.class, () -> {
+                        sleep(100);
+                        return income();
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<ResponseEntity<Sock>> response : responses) {
+                assertEquals(HttpStatus.CREATED, response.get().getStatusCode());
+            }
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecute_ConflictWhenFirstRequestTakesTooLong() throws Exception {
+        properties.getIdempotency().setWaitTimeout(Duration.ofMillis(50));
+        idempotentRequests = new IdempotentRequests(new InMemoryIdempotencyStore(properties), new ObjectMapper(), properties);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<Sock>> first = executor.submit(() ->
+                    idempotentRequests.execute("key-1", "income", socksDTO, Sock.class, () -> {
+                        started.countDown();
+                        await(finish);
+                        return income();
+                    }));
+            started.await();
+
+            assertThrows(IdempotencyConflictException.class,
+                    () -> idempotentRequests.execute("key-1", "income", socksDTO, Sock.class, this::income));
+
+            finish.countDown();
+            assertEquals(HttpStatus.CREATED, first.get().getStatusCode());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ResponseEntity<Sock> income() {
+        executions.incrementAndGet();
+        return ResponseEntity.created(URI.create("/api/socks/1")).body(new Sock(1L, "red", 50.0, 10));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
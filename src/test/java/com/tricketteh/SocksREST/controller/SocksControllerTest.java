@@ -1,18 +1,53 @@
 package com.tricketteh.SocksREST.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.BulkItemResultDTO;
+import com.tricketteh.SocksREST.dto.BulkResultDTO;
+import com.tricketteh.SocksREST.dto.ColorStatsDTO;
+import com.tricketteh.SocksREST.dto.CottonPartStatsDTO;
+import com.tricketteh.SocksREST.dto.ImportJobDTO;
+import com.tricketteh.SocksREST.dto.InventoryStatsDTO;
 import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.dto.SocksPageDTO;
+import com.tricketteh.SocksREST.dto.StockMovementPageDTO;
 import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.StockMovement;
+import com.tricketteh.SocksREST.repository.StockMovementType;
+import com.tricketteh.SocksREST.service.BatchFormat;
+import com.tricketteh.SocksREST.service.BulkItemStatus;
+import com.tricketteh.SocksREST.service.ImportJobService;
+import com.tricketteh.SocksREST.service.ImportJobStatus;
+import com.tricketteh.SocksREST.service.ImportProgress;
+import com.tricketteh.SocksREST.service.InMemoryIdempotencyStore;
+import com.tricketteh.SocksREST.service.InventoryStats;
+import com.tricketteh.SocksREST.service.InventoryVersion;
 import com.tricketteh.SocksREST.service.SockService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.*;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +59,27 @@ public class SocksControllerTest {
     @Mock
     private SockService sockService;
 
+    @Mock
+    private ImportJobService importJobService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private InventoryVersion inventoryVersion = new InventoryVersion();
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Spy
+    private InventoryResponseCache responseCache = new InventoryResponseCache(new SocksProperties(), nanoTime::get);
+
+    @Mock
+    private InventoryStats inventoryStats;
+
+    @Spy
+    private IdempotentRequests idempotentRequests = new IdempotentRequests(
+            new InMemoryIdempotencyStore(new SocksProperties()), new ObjectMapper(), new SocksProperties());
+
     @InjectMocks
     private SocksController socksController;
 
@@ -38,14 +94,14 @@ public class SocksControllerTest {
 
     @Test
     public void testSocksIncome() throws Exception {
-        Sock sock = new Sock(null, "red", 50.0, 100);
+        Sock sock = new Sock(1L, "red", 50.0, 100);
         when(sockService.socksIncome(any(SocksDTO.class))).thenReturn(sock);
 
         mockMvc.perform(post("/api/socks/income")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":100}"))
                 .andExpect(status().isCreated())
-                .andExpect(header().string("Location", "/api/socks/{sockId}"))
+                .andExpect(header().string("Location", endsWith("/1")))
                 .andExpect(jsonPath("$.color").value("red"))
                 .andExpect(jsonPath("$.cottonPart").value(50.0))
                 .andExpect(jsonPath("$.quantity").value(100));
@@ -53,6 +109,36 @@ public class SocksControllerTest {
         verify(sockService, times(1)).socksIncome(any(SocksDTO.class));
     }
 
+    @Test
+    public void testSocksIncome_ReplaysIdempotencyKey() throws Exception {
+        when(sockService.socksIncome(any(SocksDTO.class))).thenReturn(new Sock(1L, "red", 50.0, 100));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/socks/income")
+                            .header(IdempotentRequests.IDEMPOTENCY_KEY_HEADER, "income-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":100}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Location", endsWith("/1")))
+                    .andExpect(jsonPath("$.id").value(1))
+                    .andExpect(jsonPath("$.quantity").value(100));
+        }
+
+        verify(sockService, times(1)).socksIncome(any(SocksDTO.class));
+    }
+
+    @Test
+    public void testSocksIncome_Buffered() throws Exception {
+        when(sockService.socksIncome(any(SocksDTO.class))).thenReturn(new Sock(null, "red", 50.0, 300));
+
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":100}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().doesNotExist("Location"))
+                .andExpect(jsonPath("$.quantity").value(300));
+    }
+
     @Test
     public void testSocksOutcome() throws Exception {
         mockMvc.perform(post("/api/socks/outcome")
@@ -63,6 +149,47 @@ public class SocksControllerTest {
         verify(sockService, times(1)).socksOutcome(any(SocksDTO.class));
     }
 
+    @Test
+    public void testSocksOutcome_ReplaysIdempotencyKey() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/socks/outcome")
+                            .header(IdempotentRequests.IDEMPOTENCY_KEY_HEADER, "outcome-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":50}"))
+                    .andExpect(status().isNoContent());
+        }
+        mockMvc.perform(post("/api/socks/outcome")
+                        .header(IdempotentRequests.IDEMPOTENCY_KEY_HEADER, "outcome-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":50}"))
+                .andExpect(status().isNoContent());
+
+        verify(sockService, times(2)).socksOutcome(any(SocksDTO.class));
+    }
+
+    @Test
+    public void testSocksOutcomeBulk() throws Exception {
+        BulkResultDTO result = new BulkResultDTO(1, 1, List.of(
+                new BulkItemResultDTO(0, BulkItemStatus.APPLIED, null),
+                new BulkItemResultDTO(1, BulkItemStatus.INSUFFICIENT_STOCK, "Socks outcome quantity exceeds the available stock")
+        ));
+        when(sockService.socksOutcomeBulk(anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/socks/outcome/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":50}," +
+                                "{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":500}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("INSUFFICIENT_STOCK"));
+
+        ArgumentCaptor<List<SocksDTO>> items = ArgumentCaptor.forClass(List.class);
+        verify(sockService, times(1)).socksOutcomeBulk(items.capture());
+        assertEquals(2, items.getValue().size());
+        assertEquals(500, items.getValue().get(1).getQuantity());
+    }
+
     @Test
     public void testGetSocks() throws Exception {
         Sock sock1 = new Sock(1L, "red", 50.0, 100);
@@ -85,6 +212,214 @@ public class SocksControllerTest {
         verify(sockService, times(1)).getFilteredAndSortedSocks(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble(), anyString());
     }
 
+    @Test
+    public void testGetSocks_NotModified() throws Exception {
+        when(sockService.getFilteredAndSortedSocks(null, null, null, null, null, null))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 100)));
+
+        String etag = mockMvc.perform(get("/api/socks"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/socks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(sockService, times(1)).getFilteredAndSortedSocks(null, null, null, null, null, null);
+    }
+
+    @Test
+    public void testGetSocks_CachedUntilInventoryChanges() throws Exception {
+        when(sockService.getFilteredAndSortedSocks(null, null, null, null, null, null))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 100)))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 90)));
+
+        String etag = mockMvc.perform(get("/api/socks"))
+                .andExpect(jsonPath("$[0].quantity").value(100))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/socks"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$[0].quantity").value(100));
+        verify(sockService, times(1)).getFilteredAndSortedSocks(null, null, null, null, null, null);
+
+        inventoryVersion.onInventoryChanged(Map.of());
+
+        mockMvc.perform(get("/api/socks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantity").value(90));
+        verify(sockService, times(2)).getFilteredAndSortedSocks(null, null, null, null, null, null);
+    }
+
+    @Test
+    public void testGetSocks_NotModifiedWhenChangeLeavesDataEqual() throws Exception {
+        when(sockService.getFilteredAndSortedSocks(null, null, null, null, null, null))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 100)));
+
+        String etag = mockMvc.perform(get("/api/socks"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        inventoryVersion.onInventoryChanged(Map.of());
+
+        mockMvc.perform(get("/api/socks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(sockService, times(2)).getFilteredAndSortedSocks(null, null, null, null, null, null);
+    }
+
+    @Test
+    public void testGetSocks_CacheExpiresAfterTtl() throws Exception {
+        when(sockService.getFilteredAndSortedSocks(null, null, null, null, null, null))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 100)))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 70)));
+
+        String etag = mockMvc.perform(get("/api/socks"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Changed by another instance: this instance's version stays, the cached response expires with its TTL.
+        nanoTime.addAndGet(Duration.ofSeconds(4).toNanos());
+        mockMvc.perform(get("/api/socks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        mockMvc.perform(get("/api/socks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantity").value(70));
+        verify(sockService, times(2)).getFilteredAndSortedSocks(null, null, null, null, null, null);
+    }
+
+    @Test
+    public void testGetSocksPage() throws Exception {
+        Sock sock1 = new Sock(1L, "blue", 60.0, 150);
+        Sock sock2 = new Sock(2L, "red", 50.0, 100);
+        when(sockService.getSocksPage(null, null, null, null, null, "color", null, 2))
+                .thenReturn(new SocksPageDTO(List.of(sock1, sock2), "next-cursor"));
+
+        mockMvc.perform(get("/api/socks")
+                        .param("sortBy", "color")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next-cursor"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].color").value("red"));
+
+        verify(sockService, never()).getFilteredAndSortedSocks(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetSocksPage_LastPage() throws Exception {
+        when(sockService.getSocksPage(null, null, null, null, null, null, "cursor", null))
+                .thenReturn(new SocksPageDTO(List.of(new Sock(3L, "white", 20.0, 10)), null));
+
+        mockMvc.perform(get("/api/socks")
+                        .param("after", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    public void testStreamSocks() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Sock> consumer = invocation.getArgument(6);
+            consumer.accept(new Sock(1L, "red", 50.0, 100));
+            consumer.accept(new Sock(2L, "blue", 60.0, 150));
+            return null;
+        }).when(sockService).streamFilteredAndSortedSocks(any(), any(), any(), any(), any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/socks/stream").param("color", "red"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].color").value("red"))
+                .andExpect(jsonPath("$[1].quantity").value(150));
+    }
+
+    @Test
+    public void testExportSocks() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Sock> consumer = invocation.getArgument(6);
+            consumer.accept(new Sock(1L, "red", 50.0, 100));
+            consumer.accept(new Sock(2L, "light, blue", 60.0, 150));
+            return null;
+        }).when(sockService).streamFilteredAndSortedSocks(eq("red"), any(), any(), any(), any(), eq("cottonPart"), any());
+
+        MvcResult result = mockMvc.perform(get("/api/socks/export").param("color", "red").param("sortBy", "cottonPart"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string("color,cottonPart,quantity\nred,50.0,100\n\"light, blue\",60.0,150\n"));
+    }
+
+    @Test
+    public void testExportSocks_Gzip() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Sock> consumer = invocation.getArgument(6);
+            consumer.accept(new Sock(1L, "red", 50.0, 100));
+            return null;
+        }).when(sockService).streamFilteredAndSortedSocks(any(), any(), any(), any(), any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/socks/export").header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("color,cottonPart,quantity\nred,50.0,100\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testGetSocksCount() throws Exception {
+        when(sockService.getSocksCount("red", "moreThan", 40.0, null, 90.0)).thenReturn(100);
+
+        mockMvc.perform(get("/api/socks/count")
+                        .param("color", "red")
+                        .param("operation", "moreThan")
+                        .param("cottonPart", "40.0")
+                        .param("cottonPartMax", "90.0"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("100"));
+
+        verify(sockService, times(1)).getSocksCount("red", "moreThan", 40.0, null, 90.0);
+    }
+
+    @Test
+    public void testGetSocksStats() throws Exception {
+        when(inventoryStats.stats()).thenReturn(new InventoryStatsDTO(150, 2,
+                List.of(new ColorStatsDTO("red", 150, 2)),
+                List.of(new CottonPartStatsDTO(0, 50, 0, 0), new CottonPartStatsDTO(50, 100, 150, 2))));
+
+        mockMvc.perform(get("/api/socks/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(150))
+                .andExpect(jsonPath("$.skus").value(2))
+                .andExpect(jsonPath("$.colors[0].color").value("red"))
+                .andExpect(jsonPath("$.cottonParts[1].cottonPartMin").value(50.0))
+                .andExpect(jsonPath("$.cottonParts[1].quantity").value(150));
+
+        verify(inventoryStats, never()).rebuild();
+    }
+
+    @Test
+    public void testRebuildSocksStats() throws Exception {
+        when(inventoryStats.stats()).thenReturn(new InventoryStatsDTO(0, 0, List.of(), List.of()));
+
+        mockMvc.perform(post("/api/socks/stats/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(0));
+
+        verify(inventoryStats, times(1)).rebuild();
+    }
+
     @Test
     public void testUpdateSocks() throws Exception {
         mockMvc.perform(put("/api/socks/{id}", 1L)
@@ -95,6 +430,22 @@ public class SocksControllerTest {
         verify(sockService, times(1)).update(eq(1L), any(SocksDTO.class));
     }
 
+    @Test
+    public void testUpdateSocks_ConflictsWithExistingSocks() throws Exception {
+        doThrow(new DuplicateKeyException("Socks with color red and cotton part 50.0 already exist"))
+                .when(sockService).update(eq(1L), any(SocksDTO.class));
+
+        MockMvc withHandler = MockMvcBuilders.standaloneSetup(socksController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        withHandler.perform(put("/api/socks/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"color\":\"red\", \"cottonPart\":50.0, \"quantity\":200}"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Request conflict: Socks with color red and cotton part 50.0 already exist"));
+    }
+
     @Test
     public void testUploadSockBatch_Success() throws Exception {
         MockMultipartFile file = new MockMultipartFile("file", "socks.csv", "text/csv", "color,cottonPart,quantity\nred,50,100".getBytes());
@@ -120,4 +471,106 @@ public class SocksControllerTest {
 
         verify(sockService, times(1)).loadCsvFile(file);
     }
+
+    @Test
+    public void testUploadSockBatchStream_GzippedNdjson() throws Exception {
+        String ndjson = "{\"color\":\"gr\u00fcn\",\"cottonPart\":50,\"quantity\":100}\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(ndjson.getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder received = new StringBuilder();
+        doAnswer(invocation -> {
+            InputStream body = invocation.getArgument(0);
+            received.append(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(sockService).loadBatch(any(), eq(BatchFormat.NDJSON), any(ImportProgress.class));
+
+        mockMvc.perform(post("/api/socks/batch/stream")
+                        .contentType("application/x-ndjson")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(gzipped.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("File successfully loaded."));
+
+        assertEquals(ndjson, received.toString());
+    }
+
+    @Test
+    public void testUploadSockBatchStream_RejectsCorruptGzip() throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write("red,50,100\n".repeat(100).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] corrupt = gzipped.toByteArray();
+        for (int i = 12; i < corrupt.length; i++) {
+            corrupt[i] ^= 0x5a;
+        }
+        doAnswer(invocation -> invocation.<InputStream>getArgument(0).readAllBytes())
+                .when(sockService).loadBatch(any(), eq(BatchFormat.CSV), any(ImportProgress.class));
+
+        mockMvc.perform(post("/api/socks/batch/stream")
+                        .contentType("text/csv")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(corrupt))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testUploadSockBatchStream_RejectsOtherCharsets() throws Exception {
+        mockMvc.perform(post("/api/socks/batch/stream")
+                        .contentType("text/csv;charset=ISO-8859-1")
+                        .content("red,50,100"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Error: Batch must be encoded in UTF-8"));
+
+        verify(sockService, never()).loadBatch(any(), any(), any());
+    }
+
+    @Test
+    public void testGetSockHistory() throws Exception {
+        Instant from = Instant.parse("2026-10-01T00:00:00Z");
+        StockMovementPageDTO page = new StockMovementPageDTO(List.of(
+                new StockMovement(9L, 1L, StockMovementType.OUTCOME, "red", 50.0, -30, from.plusSeconds(3600))
+        ), "OTo...");
+        when(sockService.getSockHistory(1L, from, null, null, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/api/socks/{id}/history", 1L)
+                        .param("from", "2026-10-01T00:00:00Z")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SocksController.NEXT_CURSOR_HEADER, "OTo..."))
+                .andExpect(jsonPath("$[0].type").value("OUTCOME"))
+                .andExpect(jsonPath("$[0].delta").value(-30));
+    }
+
+    @Test
+    public void testSubmitSockBatch() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "socks.csv", "text/csv", "color,cottonPart,quantity\nred,50,100".getBytes());
+        ImportJobDTO job = new ImportJobDTO("job-1", ImportJobStatus.QUEUED, 0, 0, 0, 0, List.of(), null, null, null, null);
+        when(importJobService.submit(file)).thenReturn(job);
+
+        mockMvc.perform(multipart("/api/socks/batch")
+                        .file(file)
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/socks/batch/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(importJobService, times(1)).submit(file);
+        verify(sockService, never()).loadCsvFile(any());
+    }
+
+    @Test
+    public void testGetSockBatchJob() throws Exception {
+        ImportJobDTO job = new ImportJobDTO("job-1", ImportJobStatus.RUNNING, 1500, 1000, 750.0, 0, List.of(), null, null, null, null);
+        when(importJobService.getJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(get("/api/socks/batch/{jobId}", "job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.rowsParsed").value(1500))
+                .andExpect(jsonPath("$.rowsPersisted").value(1000));
+    }
 }
@@ -0,0 +1,51 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.EmbeddedPostgresTest;
+import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.service.SockService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColorDictionaryTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private ColorDictionary colorDictionary;
+
+    @Autowired
+    private SockService sockService;
+
+    @Test
+    public void testIds_IgnoreCase() {
+        int id = colorDictionary.getOrCreateId("Teal");
+
+        assertEquals(id, colorDictionary.getOrCreateId("teal"));
+        assertEquals(id, colorDictionary.findId("TEAL"));
+        assertNull(colorDictionary.findId("ultramarine"));
+
+        Map<String, Integer> ids = colorDictionary.getOrCreateIds(List.of("TEAL", "Olive", "olive"));
+        assertEquals(2, ids.size());
+        assertEquals(id, ids.get("teal"));
+        assertNotEquals(id, ids.get("olive"));
+    }
+
+    @Test
+    public void testSocks_SameSockInAnyCase() {
+        sockService.socksIncome(new SocksDTO("Navy", 45.0, 5));
+        sockService.socksIncome(new SocksDTO("navy", 45.0, 7));
+        sockService.socksOutcome(new SocksDTO("NAVY", 45.0, 2));
+
+        List<Sock> socks = sockService.getFilteredAndSortedSocks("nAvY", "equal", 45.0, null, null, null);
+        assertEquals(1, socks.size());
+        assertEquals("navy", socks.get(0).getColor());
+        assertEquals(10, socks.get(0).getQuantity());
+        assertEquals(10, sockService.getSocksCount("Navy", "equal", 45.0));
+        assertEquals(0, sockService.getSocksCount("ultramarine", null, null));
+        assertTrue(sockService.getFilteredAndSortedSocks("ultramarine", null, null, null, null, null).isEmpty());
+    }
+}
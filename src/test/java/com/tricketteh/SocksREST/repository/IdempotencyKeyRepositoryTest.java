@@ -0,0 +1,94 @@
+package com.tricketteh.SocksREST.repository;
+
+import com.tricketteh.SocksREST.EmbeddedPostgresTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyKeyRepositoryTest extends EmbeddedPostgresTest {
+
+    private static final Duration LOCK_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration TTL = Duration.ofHours(1);
+
+    @Autowired
+    private IdempotencyKeyRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testClaim_KeepsCompletedResponse() {
+        UUID token = UUID.randomUUID();
+        assertTrue(repository.claim("repo-key-1", "income:a", token, LOCK_TIMEOUT, TTL));
+        assertFalse(repository.claim("repo-key-1", "income:a", UUID.randomUUID(), LOCK_TIMEOUT, TTL));
+        assertNull(repository.find("repo-key-1").orElseThrow().status());
+
+        repository.complete("repo-key-1", UUID.randomUUID(), 500, null, null);
+        assertNull(repository.find("repo-key-1").orElseThrow().status());
+        repository.complete("repo-key-1", token, 201, "/api/socks/1", new byte[]{1, 2});
+
+        IdempotencyKey key = repository.find("repo-key-1").orElseThrow();
+        assertEquals("income:a", key.fingerprint());
+        assertEquals(201, key.status());
+        assertEquals("/api/socks/1", key.location());
+        assertArrayEquals(new byte[]{1, 2}, key.body());
+        repository.release("repo-key-1", token);
+        assertTrue(repository.find("repo-key-1").isPresent());
+    }
+
+    @Test
+    public void testClaim_TakesOverAbandonedAndExpiredKeys() {
+        UUID abandoned = UUID.randomUUID();
+        UUID completed = UUID.randomUUID();
+        repository.claim("repo-key-2", "income:a", abandoned, LOCK_TIMEOUT, TTL);
+        repository.claim("repo-key-3", "income:a", completed, LOCK_TIMEOUT, TTL);
+        repository.complete("repo-key-3", completed, 204, null, null);
+        jdbcTemplate.update("UPDATE public.idempotency_keys SET created_at = now() - INTERVAL '2 hours', " +
+                "locked_until = now() - INTERVAL '1 hour' WHERE idempotency_key IN ('repo-key-2', 'repo-key-3')");
+
+        assertTrue(repository.claim("repo-key-2", "outcome:b", UUID.randomUUID(), LOCK_TIMEOUT, TTL));
+        assertEquals("outcome:b", repository.find("repo-key-2").orElseThrow().fingerprint());
+        repository.release("repo-key-2", abandoned);
+        assertTrue(repository.find("repo-key-2").isPresent());
+        assertEquals(1, repository.deleteExpired(TTL));
+        assertTrue(repository.find("repo-key-3").isEmpty());
+    }
+
+    @Test
+    public void testClaim_OnlyOneConcurrentClaimAcquired() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> claims = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                claims.add(executor.submit(() -> {
+                    start.await();
+                    return repository.claim("repo-key-4", "income:a", UUID.randomUUID(), LOCK_TIMEOUT, TTL);
+                }));
+            }
+            start.countDown();
+
+            int acquired = 0;
+            for (Future<Boolean> claim : claims) {
+                if (claim.get()) {
+                    acquired++;
+                }
+            }
+            assertEquals(1, acquired);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
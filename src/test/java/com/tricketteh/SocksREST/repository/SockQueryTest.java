@@ -0,0 +1,153 @@
+package com.tricketteh.SocksREST.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SockQueryTest {
+
+    private static final String SELECT = "SELECT id, color, cotton_part, quantity FROM public.socks_with_color";
+
+    private static final String SELECT_BY_COLOR = "SELECT s.id, c.name AS color, s.cotton_part, s.quantity FROM public.colors c"
+            + " CROSS JOIN LATERAL (SELECT id, cotton_part, quantity FROM public.socks_with_color WHERE color_id = c.id";
+
+    @Test
+    public void testNoFilters() {
+        SockQuery query = SockQuery.selectSocks().orderBy("color").build();
+
+        assertEquals(SELECT_BY_COLOR + " ORDER BY id) s ORDER BY c.name, s.id", query.getSql());
+        assertEquals(List.of(), query.getParameters());
+    }
+
+    @Test
+    public void testColorOnly() {
+        SockQuery query = SockQuery.selectSocks().colorId(3).orderBy("color").build();
+
+        assertEquals(SELECT_BY_COLOR + " ORDER BY id) s WHERE c.id = ? ORDER BY c.name, s.id", query.getSql());
+        assertEquals(List.of(3), query.getParameters());
+    }
+
+    @Test
+    public void testOperations() {
+        assertEquals(SELECT + " WHERE cotton_part > ?",
+                SockQuery.selectSocks().cottonPart("moreThan", 40.0).build().getSql());
+        assertEquals(SELECT + " WHERE cotton_part < ?",
+                SockQuery.selectSocks().cottonPart("lessThan", 40.0).build().getSql());
+        assertEquals(SELECT + " WHERE cotton_part = ?",
+                SockQuery.selectSocks().cottonPart("equal", 40.0).build().getSql());
+    }
+
+    @Test
+    public void testOperationWithoutCottonPartIsIgnored() {
+        SockQuery query = SockQuery.selectSocks().cottonPart("moreThan", null).build();
+
+        assertEquals(SELECT, query.getSql());
+        assertEquals(List.of(), query.getParameters());
+    }
+
+    @Test
+    public void testIncorrectOperation() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            SockQuery.selectSocks().cottonPart("between", 40.0);
+        });
+        assertEquals("Incorrect operation: between", exception.getMessage());
+    }
+
+    @Test
+    public void testCottonPartRange() {
+        assertEquals(SELECT + " WHERE cotton_part BETWEEN ? AND ?",
+                SockQuery.selectSocks().cottonPartBetween(30.0, 70.0).build().getSql());
+        assertEquals(SELECT + " WHERE cotton_part >= ?",
+                SockQuery.selectSocks().cottonPartBetween(30.0, null).build().getSql());
+        assertEquals(SELECT + " WHERE cotton_part <= ?",
+                SockQuery.selectSocks().cottonPartBetween(null, 70.0).build().getSql());
+        assertEquals(SELECT,
+                SockQuery.selectSocks().cottonPartBetween(null, null).build().getSql());
+    }
+
+    @Test
+    public void testAllFiltersSortedByCottonPart() {
+        SockQuery query = SockQuery.selectSocks()
+                .colorId(3)
+                .cottonPart("moreThan", 40.0)
+                .cottonPartBetween(30.0, 70.0)
+                .orderBy("cottonPart")
+                .build();
+
+        assertEquals(SELECT + " WHERE color_id = ? AND cotton_part > ? AND cotton_part BETWEEN ? AND ? ORDER BY cotton_part, id",
+                query.getSql());
+        assertEquals(List.of(3, 40.0, 30.0, 70.0), query.getParameters());
+    }
+
+    @Test
+    public void testKeysetPage() {
+        SockQuery query = SockQuery.selectSocks()
+                .colorId(3)
+                .orderBy("color")
+                .after("red", 7L)
+                .limit(50)
+                .build();
+
+        assertEquals(SELECT_BY_COLOR + " AND (c.name > ? OR id > ?) ORDER BY id LIMIT ?) s"
+                + " WHERE c.id = ? AND c.name >= ? ORDER BY c.name, s.id LIMIT ?", query.getSql());
+        assertEquals(List.of("red", 7L, 50, 3, "red", 50), query.getParameters());
+    }
+
+    @Test
+    public void testKeysetPageByColorWithFilters() {
+        SockQuery query = SockQuery.selectSocks()
+                .cottonPartBetween(30.0, 70.0)
+                .orderBy(null)
+                .after("blue", 12L)
+                .limit(20)
+                .build();
+
+        assertEquals(SELECT_BY_COLOR + " AND cotton_part BETWEEN ? AND ? AND (c.name > ? OR id > ?) ORDER BY id LIMIT ?) s"
+                + " WHERE c.name >= ? ORDER BY c.name, s.id LIMIT ?", query.getSql());
+        assertEquals(List.of(30.0, 70.0, "blue", 12L, 20, "blue", 20), query.getParameters());
+    }
+
+    @Test
+    public void testKeysetPageByCottonPart() {
+        SockQuery query = SockQuery.selectSocks()
+                .colorId(3)
+                .orderBy("cottonPart")
+                .after(50.0, 7L)
+                .limit(50)
+                .build();
+
+        assertEquals(SELECT + " WHERE color_id = ? AND (cotton_part, id) > (?, ?) ORDER BY cotton_part, id LIMIT ?", query.getSql());
+        assertEquals(List.of(3, 50.0, 7L, 50), query.getParameters());
+    }
+
+    @Test
+    public void testFirstKeysetPage() {
+        SockQuery query = SockQuery.selectSocks()
+                .orderBy("cottonPart")
+                .after(null, null)
+                .limit(10)
+                .build();
+
+        assertEquals(SELECT + " ORDER BY cotton_part, id LIMIT ?", query.getSql());
+        assertEquals(List.of(10), query.getParameters());
+    }
+
+    @Test
+    public void testKeysetWithoutSortOrder() {
+        assertThrows(IllegalStateException.class, () -> SockQuery.selectSocks().after("red", 7L));
+    }
+
+    @Test
+    public void testSumQuantityByColorId() {
+        SockQuery query = SockQuery.sumQuantity()
+                .colorId(3)
+                .cottonPart("equal", 50.0)
+                .build();
+
+        assertEquals("SELECT COALESCE(SUM(quantity), 0) FROM public.socks_with_color WHERE color_id = ? AND cotton_part = ?",
+                query.getSql());
+        assertEquals(List.of(3, 50.0), query.getParameters());
+    }
+}
@@ -0,0 +1,208 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.ImportJobDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DefaultImportJobServiceTest {
+
+    @Mock
+    private SockService sockService;
+
+    private SocksProperties properties;
+
+    private QueuedExecutor executor;
+
+    private DefaultImportJobService importJobService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        properties = new SocksProperties();
+        properties.getBatch().setJobThreads(1);
+        properties.getBatch().setJobQueueCapacity(1);
+        properties.getBatch().setMaxJobs(2);
+        executor = new QueuedExecutor();
+        importJobService = new DefaultImportJobService(sockService, properties, executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // Runs the jobs left in the queue, so their spooled files are deleted.
+        executor.runAll();
+        importJobService.shutdown();
+    }
+
+    @Test
+    public void testSubmit_CompletesInBackground() throws Exception {
+        ImportJobDTO submitted = importJobService.submit(csvFile("red,50,100"));
+        assertFalse(submitted.getStatus().isFinished());
+
+        ImportJobDTO job = runJobs(submitted.getJobId());
+
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus());
+        verify(sockService, times(1)).loadCsvFile(any(Path.class), any(ImportProgress.class));
+    }
+
+    @Test
+    public void testSubmit_ReportsFailure() throws Exception {
+        doThrow(new IllegalArgumentException("Incorrect operation")).when(sockService).loadCsvFile(any(Path.class), any());
+
+        ImportJobDTO job = runJobs(importJobService.submit(csvFile("red,50,100")).getJobId());
+
+        assertEquals(ImportJobStatus.FAILED, job.getStatus());
+        assertEquals("Import failed, nothing was saved: Incorrect operation", job.getFailure());
+    }
+
+    @Test
+    public void testSubmit_KeepsFirstErrorsAndFinalRate() throws Exception {
+        doAnswer(invocation -> {
+            ImportProgress progress = invocation.getArgument(1);
+            for (int i = 1; i <= 150; i++) {
+                progress.rowRejected("String " + i + ": Incorrect data format.");
+            }
+            throw new IllegalArgumentException("Errors in file's reading");
+        }).when(sockService).loadCsvFile(any(Path.class), any());
+
+        ImportJobDTO job = runJobs(importJobService.submit(csvFile("red,500,100")).getJobId());
+        long finishedAt = System.nanoTime();
+        while (System.nanoTime() == finishedAt) {
+            Thread.onSpinWait();
+        }
+
+        assertEquals("File contains 150 incorrect rows, nothing was saved", job.getFailure());
+        assertEquals(150, job.getErrorCount());
+        assertEquals(ImportProgress.MAX_ERRORS, job.getErrors().size());
+        assertEquals("String 100: Incorrect data format.", job.getErrors().get(99));
+        assertEquals(job.getRowsPerSecond(), importJobService.getJob(job.getJobId()).getRowsPerSecond());
+    }
+
+    @Test
+    public void testSubmit_EmptyFile() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            importJobService.submit(csvFile(""));
+        });
+        assertEquals("File is empty. Please load a correct file", exception.getMessage());
+    }
+
+    @Test
+    public void testSubmit_RejectsWhenRegistryIsFullOfRunningJobs() throws Exception {
+        importJobService.submit(csvFile("red,50,100"));
+        importJobService.submit(csvFile("red,50,100"));
+
+        assertThrows(RejectedExecutionException.class, () -> importJobService.submit(csvFile("red,50,100")));
+    }
+
+    @Test
+    public void testSubmit_EvictsFinishedJobs() throws Exception {
+        String first = importJobService.submit(csvFile("red,50,100")).getJobId();
+        runJobs(first);
+        runJobs(importJobService.submit(csvFile("red,50,100")).getJobId());
+
+        importJobService.submit(csvFile("red,50,100"));
+
+        assertThrows(NoSuchElementException.class, () -> importJobService.getJob(first));
+    }
+
+    @Test
+    public void testSubmit_RunsOnVirtualThreadsWhenEnabled() throws Exception {
+        importJobService.shutdown();
+        importJobService = new DefaultImportJobService(sockService, properties,
+                new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+        AtomicBoolean virtual = new AtomicBoolean();
+        CountDownLatch loaded = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            virtual.set(Thread.currentThread().isVirtual());
+            loaded.countDown();
+            return null;
+        }).when(sockService).loadCsvFile(any(Path.class), any());
+
+        importJobService.submit(csvFile("red,50,100"));
+
+        assertTrue(loaded.await(1, TimeUnit.MINUTES));
+        assertTrue(virtual.get());
+    }
+
+    private ImportJobDTO runJobs(String jobId) {
+        executor.runAll();
+        return importJobService.getJob(jobId);
+    }
+
+    private MockMultipartFile csvFile(String content) {
+        return new MockMultipartFile("file", "socks.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Keeps submitted jobs until the test runs them on its own thread.
+     */
+    private static class QueuedExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean shutdown;
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            return pending;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package com.tricketteh.SocksREST.service;
 
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.BulkResultDTO;
 import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.dto.SocksPageDTO;
+import com.tricketteh.SocksREST.dto.StockMovementPageDTO;
 import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.SockFilter;
 import com.tricketteh.SocksREST.repository.SockRepository;
+import com.tricketteh.SocksREST.repository.StockMovement;
+import com.tricketteh.SocksREST.repository.StockMovementType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @SpringBootTest
 public class DefaultSockServiceTest {
@@ -22,6 +40,30 @@ public class DefaultSockServiceTest {
     @Mock
     private SockRepository sockRepository;
 
+    @Mock
+    private InventoryChanges inventoryChanges;
+
+    @Mock
+    private InventoryIndex inventoryIndex;
+
+    @Mock
+    private SocksMetrics socksMetrics;
+
+    @Mock
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private ParallelCsvParser parallelCsvParser;
+
+    @Spy
+    private SocksProperties properties = new SocksProperties();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private DefaultSockService sockService;
 
@@ -35,58 +77,246 @@ public class DefaultSockServiceTest {
 
     @Test
     public void testSocksIncome() {
-        Sock sock = new Sock(null, socksDTO.getColor(), socksDTO.getCottonPart(), socksDTO.getQuantity());
-        when(sockRepository.save(any(Sock.class))).thenReturn(sock);
+        Sock sock = new Sock(1L, socksDTO.getColor(), socksDTO.getCottonPart(), 300);
+        when(sockRepository.upsertIncome("red", 50.0, 100)).thenReturn(sock);
 
         Sock result = sockService.socksIncome(socksDTO);
 
         assertNotNull(result);
         assertEquals(socksDTO.getColor(), result.getColor());
         assertEquals(socksDTO.getCottonPart(), result.getCottonPart());
-        assertEquals(socksDTO.getQuantity(), result.getQuantity());
-        verify(sockRepository, times(1)).save(any(Sock.class));
+        assertEquals(300, result.getQuantity());
+        verify(sockRepository, times(1)).upsertIncome("red", 50.0, 100);
+        verify(sockRepository, never()).save(any(Sock.class));
+        verify(inventoryChanges).record("red", 50.0, 100);
+        verify(stockLedger).record(StockMovementType.INCOME, 1L, "red", 50.0, 100);
     }
 
     @Test
     public void testSocksOutcome_SufficientQuantity() {
-        Sock existingSock = new Sock(1L, "red", 50.0, 200);
-        when(sockRepository.findIdByFields(anyString(), anyDouble(), anyInt())).thenReturn(Optional.of(1L));
-        when(sockRepository.findById(anyLong())).thenReturn(Optional.of(existingSock));
+        when(sockRepository.decrementQuantity("red", 50.0, 100)).thenReturn(1);
 
         sockService.socksOutcome(socksDTO);
 
-        assertEquals(100, existingSock.getQuantity());
-        verify(sockRepository, times(1)).save(existingSock);
+        verify(sockRepository, times(1)).decrementQuantity("red", 50.0, 100);
+        verify(inventoryChanges).record("red", 50.0, -100);
+        verify(stockLedger).record(StockMovementType.OUTCOME, null, "red", 50.0, -100);
+        verify(sockRepository, never()).existsByColorAndCottonPart(anyString(), anyDouble());
+        verify(sockRepository, never()).findById(anyLong());
     }
 
     @Test
     public void testSocksOutcome_InsufficientQuantity() {
-        Sock existingSock = new Sock(1L, "red", 50.0, 50);
-        when(sockRepository.findIdByFields(anyString(), anyDouble(), anyInt())).thenReturn(Optional.of(1L));
-        when(sockRepository.findById(anyLong())).thenReturn(Optional.of(existingSock));
+        when(sockRepository.decrementQuantity("red", 50.0, 100)).thenReturn(0);
+        when(sockRepository.existsByColorAndCottonPart("red", 50.0)).thenReturn(true);
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             sockService.socksOutcome(socksDTO);
         });
         assertEquals("Socks outcome quantity exceeds the available stock", exception.getMessage());
+        verify(socksMetrics, times(1)).insufficientStock();
+    }
+
+    @Test
+    public void testSocksOutcome_NotFound() {
+        when(sockRepository.decrementQuantity("red", 50.0, 100)).thenReturn(0);
+        when(sockRepository.existsByColorAndCottonPart("red", 50.0)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class, () -> {
+            sockService.socksOutcome(socksDTO);
+        });
     }
 
     @Test
     public void testUpdateSock_Success() {
         Sock existingSock = new Sock(1L, "red", 50.0, 100);
-        when(sockRepository.findById(anyLong())).thenReturn(Optional.of(existingSock));
+        when(sockRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(existingSock));
+        when(sockRepository.getOrCreateColorId("red")).thenReturn(3);
 
         sockService.update(1L, socksDTO);
 
+        assertEquals(3, existingSock.getColorId());
         assertEquals(socksDTO.getColor(), existingSock.getColor());
         assertEquals(socksDTO.getCottonPart(), existingSock.getCottonPart());
         assertEquals(socksDTO.getQuantity(), existingSock.getQuantity());
         verify(sockRepository, times(1)).save(existingSock);
+        verify(inventoryChanges).record("red", 50.0, -100);
+        verify(inventoryChanges).record("red", 50.0, 100);
+    }
+
+    @Test
+    public void testUpdateSock_RejectsMovingOntoExistingSocks() {
+        Sock existingSock = new Sock(1L, "blue", 50.0, 100);
+        when(sockRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(existingSock));
+        when(sockRepository.existsByColorAndCottonPart("red", 50.0)).thenReturn(true);
+
+        assertThrows(DuplicateKeyException.class, () -> sockService.update(1L, socksDTO));
+        verify(sockRepository, never()).save(any());
+    }
+
+    @Test
+    public void testUpdateSock_RejectsMovingStripedSock() {
+        Sock existingSock = new Sock(1L, "blue", 50.0, 100);
+        when(sockRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.of(existingSock));
+        when(sockRepository.isStriped(1L)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> sockService.update(1L, socksDTO));
+        verify(sockRepository, never()).drainStripes(anyLong());
+        verify(sockRepository, never()).save(any());
+    }
+
+    @Test
+    public void testSocksIncomeBulk_CoalescesSameSocks() {
+        List<SocksDTO> items = List.of(
+                new SocksDTO("red", 50.0, 10),
+                new SocksDTO("blue", 60.0, 5),
+                new SocksDTO("red", 50.0, 15),
+                new SocksDTO(" ", 50.0, 1)
+        );
+
+        BulkResultDTO result = sockService.socksIncomeBulk(items);
+
+        ArgumentCaptor<Collection<Sock>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(1)).upsertIncomeAll(batch.capture());
+        List<Sock> socks = new ArrayList<>(batch.getValue());
+        assertEquals(2, socks.size());
+        assertEquals("blue", socks.get(0).getColor());
+        assertEquals(25, socks.get(1).getQuantity());
+        verify(inventoryChanges).record("red", 50.0, 25);
+        assertEquals(3, result.getApplied());
+        assertEquals(1, result.getRejected());
+        assertEquals(BulkItemStatus.INVALID, result.getItems().get(3).getStatus());
+        assertEquals("Color cannot be empty", result.getItems().get(3).getMessage());
+    }
+
+    @Test
+    public void testSocksOutcomeBulk_RetriesFailedGroupItemByItem() {
+        List<SocksDTO> items = List.of(
+                new SocksDTO("red", 50.0, 30),
+                new SocksDTO("red", 50.0, 100),
+                new SocksDTO("blue", 60.0, 5),
+                new SocksDTO("green", 70.0, 1)
+        );
+        when(sockRepository.decrementQuantityAll(anyList())).thenReturn(new int[]{1, 0, 0});
+        when(sockRepository.decrementQuantity("red", 50.0, 30)).thenReturn(1);
+        when(sockRepository.decrementQuantity("red", 50.0, 100)).thenReturn(0);
+        when(sockRepository.decrementQuantity("green", 70.0, 1)).thenReturn(0);
+        when(sockRepository.existsByColorAndCottonPart("red", 50.0)).thenReturn(true);
+        when(sockRepository.existsByColorAndCottonPart("green", 70.0)).thenReturn(false);
+
+        BulkResultDTO result = sockService.socksOutcomeBulk(items);
+
+        assertEquals(2, result.getApplied());
+        assertEquals(2, result.getRejected());
+        assertEquals(BulkItemStatus.APPLIED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.INSUFFICIENT_STOCK, result.getItems().get(1).getStatus());
+        assertEquals(BulkItemStatus.APPLIED, result.getItems().get(2).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(3).getStatus());
+        verify(inventoryChanges).record("blue", 60.0, -5);
+        verify(inventoryChanges).record("red", 50.0, -30);
+        verify(socksMetrics, times(1)).insufficientStock();
+    }
+
+    @Test
+    public void testSocksOutcomeBulk_ReservesFromWriteBehindBuffer() {
+        List<SocksDTO> items = List.of(
+                new SocksDTO("red", 50.0, 30),
+                new SocksDTO("red", 50.0, 100),
+                new SocksDTO("green", 70.0, 1)
+        );
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(writeBehindBuffer.outcome("red", 50.0, 30)).thenReturn(BulkItemStatus.APPLIED);
+        when(writeBehindBuffer.outcome("red", 50.0, 100)).thenReturn(BulkItemStatus.INSUFFICIENT_STOCK);
+        when(writeBehindBuffer.outcome("green", 70.0, 1)).thenReturn(BulkItemStatus.NOT_FOUND);
+
+        BulkResultDTO result = sockService.socksOutcomeBulk(items);
+
+        assertEquals(1, result.getApplied());
+        assertEquals(BulkItemStatus.INSUFFICIENT_STOCK, result.getItems().get(1).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(2).getStatus());
+        verify(socksMetrics, times(1)).insufficientStock();
+        verifyNoInteractions(sockRepository, inventoryChanges, stockLedger);
+    }
+
+    @Test
+    public void testUpdate_RejectedWithWriteBehind() {
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+
+        assertThrows(UnsupportedOperationException.class, () -> sockService.update(1L, socksDTO));
+        verifyNoInteractions(sockRepository);
+    }
+
+    @Test
+    public void testSocksOutcomeBulk_Empty() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.socksOutcomeBulk(List.of());
+        });
+        assertEquals("Bulk request must contain between 1 and 5000 items", exception.getMessage());
+        verifyNoInteractions(sockRepository);
+    }
+
+    @Test
+    public void testGetSockHistory_ReturnsCursorOfFullPage() {
+        Instant from = Instant.parse("2026-10-01T00:00:00Z");
+        Instant to = Instant.parse("2026-10-02T00:00:00Z");
+        Instant createdAt = Instant.parse("2026-10-01T10:15:30.123456Z");
+        List<StockMovement> movements = List.of(
+                new StockMovement(7L, 1L, StockMovementType.INCOME, "red", 50.0, 100, createdAt.minusSeconds(60)),
+                new StockMovement(9L, 1L, StockMovementType.OUTCOME, "red", 50.0, -30, createdAt)
+        );
+        when(sockRepository.existsById(1L)).thenReturn(true);
+        when(stockLedger.settledBefore()).thenReturn(to.plusSeconds(1));
+        when(stockLedger.history(1L, from, to, null, null, 2)).thenReturn(movements);
+
+        StockMovementPageDTO page = sockService.getSockHistory(1L, from, to, null, 2);
+
+        assertEquals(movements, page.getItems());
+        SockCursor cursor = SockCursor.decode(page.getNextCursor());
+        assertEquals(9L, cursor.id());
+        assertEquals(createdAt, cursor.instantValue());
+
+        when(stockLedger.history(1L, from, to, createdAt, 9L, 2)).thenReturn(List.of());
+        assertNull(sockService.getSockHistory(1L, from, to, page.getNextCursor(), 2).getNextCursor());
+    }
+
+    @Test
+    public void testGetSockHistory_StopsBeforeRunningTransactions() {
+        Instant from = Instant.parse("2026-10-01T00:00:00Z");
+        Instant to = Instant.parse("2026-10-02T00:00:00Z");
+        Instant settled = Instant.parse("2026-10-01T12:00:00Z");
+        Instant createdAt = Instant.parse("2026-10-01T10:15:30Z");
+        List<StockMovement> movements = List.of(
+                new StockMovement(9L, 1L, StockMovementType.OUTCOME, "red", 50.0, -30, createdAt)
+        );
+        when(sockRepository.existsById(1L)).thenReturn(true);
+        when(stockLedger.settledBefore()).thenReturn(settled);
+        when(stockLedger.history(1L, from, settled, null, null, 2)).thenReturn(movements);
+
+        StockMovementPageDTO page = sockService.getSockHistory(1L, from, to, null, 2);
+
+        assertEquals(movements, page.getItems());
+        SockCursor cursor = SockCursor.decode(page.getNextCursor());
+        assertEquals(9L, cursor.id());
+        assertEquals(createdAt, cursor.instantValue());
+
+        when(stockLedger.history(1L, from, settled, createdAt, 9L, 2)).thenReturn(List.of());
+        assertEquals(page.getNextCursor(), sockService.getSockHistory(1L, from, to, page.getNextCursor(), 2).getNextCursor());
+    }
+
+    @Test
+    public void testGetSockHistory_NotFound() {
+        when(sockRepository.existsById(1L)).thenReturn(false);
+
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class, () -> {
+            sockService.getSockHistory(1L, null, null, null, null);
+        });
+        assertEquals("Sock with ID 1 not found", exception.getMessage());
+        verifyNoInteractions(stockLedger);
     }
 
     @Test
     public void testUpdateSock_NotFound() {
-        when(sockRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(sockRepository.findByIdForUpdate(anyLong())).thenReturn(Optional.empty());
 
         NoSuchElementException exception = assertThrows(NoSuchElementException.class, () -> {
             sockService.update(1L, socksDTO);
@@ -96,12 +326,68 @@ public class DefaultSockServiceTest {
 
     @Test
     public void testLoadCsvFile_Success() throws Exception {
-        MultipartFile file = mock(MultipartFile.class);
-        when(file.isEmpty()).thenReturn(false);
+        MultipartFile file = csvFile("color,cottonPart,quantity\nred,50,100\nblue,60,150");
+
+        sockService.loadCsvFile(file);
+
+        verify(sockRepository, times(1)).upsertIncomeAll(anyList());
+        verify(socksMetrics, times(1)).rowsImported(2);
+    }
+
+    @Test
+    public void testLoadCsvFile_FlushesChunks() throws Exception {
+        properties.getBatch().setChunkSize(2);
+        MultipartFile file = csvFile("red,50,100\nblue,60,150\nred,50,10\ngreen,70,5\nblack,80,1");
+
+        sockService.loadCsvFile(file);
+
+        ArgumentCaptor<Collection<Sock>> chunks = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(3)).upsertIncomeAll(chunks.capture());
+        List<Collection<Sock>> values = chunks.getAllValues();
+        assertEquals(2, values.get(0).size());
+        assertEquals(2, values.get(1).size());
+        assertEquals(1, values.get(2).size());
+    }
+
+    @Test
+    public void testLoadCsvFile_CoalescesRowsOfSameSock() throws Exception {
+        MultipartFile file = csvFile("red,50,100\nred,50,10");
 
         sockService.loadCsvFile(file);
 
-        verify(sockRepository, times(1)).saveAll(anyList());
+        ArgumentCaptor<Collection<Sock>> chunk = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(1)).upsertIncomeAll(chunk.capture());
+        Sock sock = chunk.getValue().iterator().next();
+        assertEquals(1, chunk.getValue().size());
+        assertEquals(110, sock.getQuantity());
+    }
+
+    @Test
+    public void testLoadCsvFile_RejectsRowOverflowingSockTotal() throws Exception {
+        MultipartFile file = csvFile("red,50,2147483647\nred,50,1\nblue,60,5");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.loadCsvFile(file);
+        });
+        assertEquals("Errors in file's reading:\n" +
+                "String 2: total quantity of the socks exceeds 2147483647.", exception.getMessage());
+        verify(sockRepository, never()).upsertIncomeAll(anyList());
+    }
+
+    @Test
+    public void testLoadCsvFile_ReportsAllErrors() throws Exception {
+        properties.getBatch().setChunkSize(1);
+        MultipartFile file = csvFile("color,cottonPart,quantity\nred,50,100\n ,60,150\nblue,101,5\ngreen,70,0");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.loadCsvFile(file);
+        });
+        assertEquals("Errors in file's reading:\n" +
+                "String 3: Color cannot be empty.\n" +
+                "String 4: Cotton part must be between 0 and 100.\n" +
+                "String 5: quantity must be greater than 0.", exception.getMessage());
+        verify(socksMetrics, times(1)).rowsRejected(3);
+        verify(socksMetrics, never()).rowsImported(anyLong());
     }
 
     @Test
@@ -115,15 +401,195 @@ public class DefaultSockServiceTest {
         assertEquals("File is empty. Please load a correct file", exception.getMessage());
     }
 
+    @Test
+    public void testLoadBatch_Ndjson() {
+        String ndjson = "{\"color\":\"gr\u00fcn\",\"cottonPart\":50,\"quantity\":100}\n\n"
+                + "{\"color\":\"gr\u00fcn\",\"cottonPart\":\"50.0\",\"quantity\":10}\n";
+
+        sockService.loadBatch(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BatchFormat.NDJSON,
+                new ImportProgress());
+
+        ArgumentCaptor<Collection<Sock>> chunk = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(1)).upsertIncomeAll(chunk.capture());
+        Sock sock = chunk.getValue().iterator().next();
+        assertEquals("gr\u00fcn", sock.getColor());
+        assertEquals(110, sock.getQuantity());
+        verify(socksMetrics, times(1)).rowsImported(2);
+    }
+
+    @Test
+    public void testLoadBatch_NdjsonReportsAllErrors() {
+        String ndjson = "{\"color\":\"red\",\"cottonPart\":50,\"quantity\":100}\n"
+                + "{\"color\":\"red\",\"cottonPart\":50\n"
+                + "{\"color\":\"red\",\"quantity\":5}\n"
+                + "[1,2,3]\n";
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.loadBatch(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BatchFormat.NDJSON,
+                    new ImportProgress());
+        });
+        assertEquals("Errors in file's reading:\n" +
+                "String 2: Incorrect JSON object.\n" +
+                "String 3: Incorrect cotton part.\n" +
+                "String 4: Incorrect JSON object.", exception.getMessage());
+        verify(sockRepository, never()).upsertIncomeAll(anyCollection());
+    }
+
+    @Test
+    public void testLoadBatch_RejectsShortRows() {
+        String csv = "red,50\nblue,60,5\n\"green\"\n";
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.loadBatch(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BatchFormat.CSV,
+                    new ImportProgress());
+        });
+        assertEquals("Errors in file's reading:\n" +
+                "String 1: Row must have color, cotton part and quantity.\n" +
+                "String 3: Row must have color, cotton part and quantity.", exception.getMessage());
+        verify(sockRepository, never()).upsertIncomeAll(anyCollection());
+    }
+
+    @Test
+    public void testLoadBatch_CapsReportedErrors() {
+        String csv = " ,50,100\n".repeat(ImportProgress.MAX_ERRORS + 5);
+        ImportProgress progress = new ImportProgress();
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.loadBatch(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BatchFormat.CSV, progress);
+        });
+        assertTrue(exception.getMessage().endsWith("\nString 100: Color cannot be empty.\n... and 5 more incorrect rows"));
+        assertEquals(ImportProgress.MAX_ERRORS + 5, progress.getErrorCount());
+        assertEquals(ImportProgress.MAX_ERRORS, progress.getErrors().size());
+        verify(socksMetrics, times(1)).rowsRejected(ImportProgress.MAX_ERRORS + 5);
+    }
+
+    @Test
+    public void testLoadBatch_RejectsLinesThatAreNotUtf8() {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        csv.writeBytes("red,50,100\nbl".getBytes(StandardCharsets.UTF_8));
+        csv.write(0xff);
+        csv.writeBytes("ue,60,5\n ,70,5\n".getBytes(StandardCharsets.UTF_8));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.loadBatch(new ByteArrayInputStream(csv.toByteArray()), BatchFormat.CSV, new ImportProgress());
+        });
+        assertEquals("Errors in file's reading:\n" +
+                "String 2: Invalid UTF-8 byte sequence.\n" +
+                "String 3: Color cannot be empty.", exception.getMessage());
+        verify(sockRepository, never()).upsertIncomeAll(anyCollection());
+    }
+
     @Test
     public void testGetSocksCount() {
-        Sock sock1 = new Sock(1L, "red", 50.0, 100);
-        Sock sock2 = new Sock(2L, "blue", 60.0, 150);
-        when(sockRepository.findAll()).thenReturn(List.of(sock1, sock2));
+        when(sockRepository.sumQuantity(new SockFilter("red", "moreThan", 40.0, null, null))).thenReturn(100L);
 
         int count = sockService.getSocksCount("red", "moreThan", 40.0);
 
         assertEquals(100, count);
+        verify(sockRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetSocksCount_FromInventoryIndex() {
+        when(inventoryIndex.isReady()).thenReturn(true);
+        when(inventoryIndex.sum("red", "moreThan", 40.0, 30.0, 70.0)).thenReturn(42L);
+
+        int count = sockService.getSocksCount("red", "moreThan", 40.0, 30.0, 70.0);
+
+        assertEquals(42, count);
+        verify(sockRepository, never()).sumQuantity(any());
     }
-}
 
+    @Test
+    public void testGetSocksCount_WithoutCottonPart() {
+        when(sockRepository.sumQuantity(new SockFilter("red", null, null, null, null))).thenReturn(250L);
+
+        int count = sockService.getSocksCount("red", "moreThan", null);
+
+        assertEquals(250, count);
+    }
+
+    @Test
+    public void testGetSocksCount_IncorrectOperation() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.getSocksCount("red", "between", 40.0);
+        });
+        assertEquals("Incorrect operation: between", exception.getMessage());
+        verifyNoInteractions(sockRepository);
+    }
+
+    @Test
+    public void testGetSocksPage_ReturnsCursorOfLastSock() {
+        Sock sock1 = new Sock(1L, "blue", 60.0, 150);
+        Sock sock2 = new Sock(7L, "red", 50.0, 100);
+        when(sockRepository.findPage(any(SockFilter.class), eq("color"), isNull(), isNull(), eq(2)))
+                .thenReturn(List.of(sock1, sock2));
+
+        SocksPageDTO page = sockService.getSocksPage(null, null, null, null, null, "color", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        sockService.getSocksPage(null, null, null, null, null, "color", page.getNextCursor(), 2);
+
+        verify(sockRepository).findPage(any(SockFilter.class), eq("color"), eq("red"), eq(7L), eq(2));
+    }
+
+    @Test
+    public void testGetSocksPage_LastPageHasNoCursor() {
+        when(sockRepository.findPage(any(SockFilter.class), eq("cottonPart"), isNull(), isNull(), eq(10)))
+                .thenReturn(List.of(new Sock(1L, "red", 50.0, 100)));
+
+        SocksPageDTO page = sockService.getSocksPage(null, null, null, null, null, "cottonPart", null, 10);
+
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetSocksPage_IncorrectLimit() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sockService.getSocksPage(null, null, null, null, null, "color", null, 5000);
+        });
+        assertEquals("Limit must be between 1 and 1000", exception.getMessage());
+    }
+
+    @Test
+    public void testGetSocksPage_IncorrectCursor() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            sockService.getSocksPage(null, null, null, null, null, "color", "not a cursor", 10);
+        });
+    }
+
+    @Test
+    public void testGetSocksPage_CottonPartCursor() {
+        Sock sock = new Sock(3L, "red", 55.5, 100);
+        when(sockRepository.findPage(any(SockFilter.class), eq("cottonPart"), isNull(), isNull(), eq(1)))
+                .thenReturn(List.of(sock));
+
+        SocksPageDTO page = sockService.getSocksPage(null, null, null, null, null, "cottonPart", null, 1);
+        sockService.getSocksPage(null, null, null, null, null, "cottonPart", page.getNextCursor(), 1);
+
+        verify(sockRepository).findPage(any(SockFilter.class), eq("cottonPart"), eq(55.5), eq(3L), eq(1));
+    }
+
+    @Test
+    public void testStreamFilteredAndSortedSocks() {
+        Sock sock1 = new Sock(1L, "red", 50.0, 100);
+        Sock sock2 = new Sock(2L, "blue", 60.0, 150);
+        doAnswer(invocation -> {
+            Consumer<Sock> consumer = invocation.getArgument(3);
+            consumer.accept(sock1);
+            consumer.accept(sock2);
+            return null;
+        }).when(sockRepository).streamFilteredAndSorted(eq(new SockFilter("red", null, null, null, null)), eq("color"), eq(500), any());
+        List<Sock> streamed = new ArrayList<>();
+
+        sockService.streamFilteredAndSortedSocks("red", null, null, null, null, null, streamed::add);
+
+        assertEquals(List.of(sock1, sock2), streamed);
+    }
+
+    private MultipartFile csvFile(String content) {
+        return new MockMultipartFile("file", "socks.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
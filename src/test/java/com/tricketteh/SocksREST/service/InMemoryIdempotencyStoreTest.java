@@ -0,0 +1,138 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryIdempotencyStoreTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private SocksProperties properties;
+
+    private InMemoryIdempotencyStore store;
+
+    @BeforeEach
+    public void setup() {
+        properties = new SocksProperties();
+        store = new InMemoryIdempotencyStore(properties, nanoTime::get);
+    }
+
+    @Test
+    public void testClaim_ReplaysCompletedResponse() {
+        IdempotentResponse response = new IdempotentResponse(201, "/api/socks/1", new byte[]{1});
+
+        IdempotencyClaim acquired = store.claim("key-1", "income:a");
+        assertEquals(IdempotencyClaim.State.ACQUIRED, acquired.state());
+        assertEquals(IdempotencyClaim.IN_PROGRESS, store.claim("key-1", "income:a"));
+        store.complete("key-1", acquired.token(), response);
+
+        IdempotencyClaim claim = store.claim("key-1", "income:a");
+        assertEquals(IdempotencyClaim.State.COMPLETED, claim.state());
+        assertSame(response, claim.response());
+        assertEquals(IdempotencyClaim.MISMATCH, store.claim("key-1", "outcome:a"));
+    }
+
+    @Test
+    public void testRelease_AllowsRetry() {
+        IdempotencyClaim claim = store.claim("key-1", "income:a");
+        store.release("key-1", claim.token());
+
+        assertEquals(IdempotencyClaim.State.ACQUIRED, store.claim("key-1", "income:a").state());
+    }
+
+    @Test
+    public void testCompleteAndRelease_IgnoreClaimsThatWereTakenOver() {
+        properties.getIdempotency().setLockTimeout(Duration.ofMillis(100));
+        store = new InMemoryIdempotencyStore(properties, nanoTime::get);
+        IdempotencyClaim abandoned = store.claim("key-1", "income:a");
+        advance(Duration.ofMillis(101));
+        IdempotencyClaim current = store.claim("key-1", "income:a");
+
+        store.release("key-1", abandoned.token());
+        store.complete("key-1", abandoned.token(), new IdempotentResponse(204, null, null));
+        assertEquals(IdempotencyClaim.IN_PROGRESS, store.claim("key-1", "income:a"));
+
+        store.complete("key-1", current.token(), new IdempotentResponse(201, null, null));
+        assertEquals(201, store.claim("key-1", "income:a").response().status());
+        store.release("key-1", UUID.randomUUID());
+        assertEquals(IdempotencyClaim.State.COMPLETED, store.claim("key-1", "income:a").state());
+    }
+
+    @Test
+    public void testClaim_TakesOverExpiredKeys() {
+        properties.getIdempotency().setTtl(Duration.ofMillis(1000));
+        properties.getIdempotency().setLockTimeout(Duration.ofMillis(100));
+        store = new InMemoryIdempotencyStore(properties, nanoTime::get);
+        store.complete("completed", store.claim("completed", "income:a").token(), new IdempotentResponse(204, null, null));
+        store.claim("abandoned", "income:a");
+
+        advance(Duration.ofMillis(100));
+        assertEquals(IdempotencyClaim.IN_PROGRESS, store.claim("abandoned", "income:a"));
+        advance(Duration.ofMillis(1));
+        assertEquals(IdempotencyClaim.State.ACQUIRED, store.claim("abandoned", "income:a").state());
+        assertEquals(IdempotencyClaim.State.COMPLETED, store.claim("completed", "income:a").state());
+
+        advance(Duration.ofMillis(900));
+        assertEquals(IdempotencyClaim.State.ACQUIRED, store.claim("completed", "income:a").state());
+    }
+
+    @Test
+    public void testClaim_DropsOldestCompletedKeyWhenFull() {
+        properties.getIdempotency().setMaxKeys(2);
+        store = new InMemoryIdempotencyStore(properties, nanoTime::get);
+
+        store.claim("key-1", "income:a");
+        store.complete("key-2", store.claim("key-2", "income:a").token(), new IdempotentResponse(204, null, null));
+        store.claim("key-3", "income:a");
+
+        assertEquals(2, store.size());
+        assertEquals(IdempotencyClaim.IN_PROGRESS, store.claim("key-1", "income:a"));
+        assertEquals(IdempotencyClaim.IN_PROGRESS, store.claim("key-3", "income:a"));
+        assertThrows(RejectedExecutionException.class, () -> store.claim("key-2", "income:a"));
+    }
+
+    @Test
+    public void testClaim_OnlyOneConcurrentClaimAcquired() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<IdempotencyClaim>> claims = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                claims.add(executor.submit(() -> {
+                    start.await();
+                    return store.claim("key-1", "income:a");
+                }));
+            }
+            start.countDown();
+
+            int acquired = 0;
+            for (Future<IdempotencyClaim> claim : claims) {
+                if (claim.get().state() == IdempotencyClaim.State.ACQUIRED) {
+                    acquired++;
+                }
+            }
+            assertEquals(1, acquired);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void advance(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,121 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.SockQuantity;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InventoryIndexTest {
+
+    @Mock
+    private SockRepository sockRepository;
+
+    private InventoryIndex inventoryIndex;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        SocksProperties properties = new SocksProperties();
+        properties.getInventoryIndex().setEnabled(true);
+        inventoryIndex = new InventoryIndex(sockRepository, properties, new InventorySnapshots(),
+                mock(PlatformTransactionManager.class));
+        List<SockQuantity> rows = List.of(
+                row("red", 20.0, 10L),
+                row("red", 50.0, 100L),
+                row("red", 80.0, 1000L),
+                row("blue", 50.0, 7L)
+        );
+        when(sockRepository.sumQuantityBySock()).thenReturn(rows);
+        inventoryIndex.rebuild();
+    }
+
+    @Test
+    public void testSum_Operations() {
+        assertTrue(inventoryIndex.isReady());
+        assertEquals(1110, inventoryIndex.sum("red", null, null, null, null));
+        assertEquals(1000, inventoryIndex.sum("RED", "moreThan", 50.0, null, null));
+        assertEquals(10, inventoryIndex.sum("red", "lessThan", 50.0, null, null));
+        assertEquals(100, inventoryIndex.sum("red", "equal", 50.0, null, null));
+        assertEquals(0, inventoryIndex.sum("red", "equal", 51.0, null, null));
+        assertEquals(107, inventoryIndex.sum(null, "equal", 50.0, null, null));
+        assertEquals(0, inventoryIndex.sum("green", null, null, null, null));
+    }
+
+    @Test
+    public void testSum_Range() {
+        assertEquals(110, inventoryIndex.sum("red", null, null, 20.0, 50.0));
+        assertEquals(100, inventoryIndex.sum("red", "moreThan", 20.0, null, 79.0));
+        assertEquals(0, inventoryIndex.sum("red", null, null, 60.0, 30.0));
+        assertEquals(1117, inventoryIndex.sum(null, null, null, 0.0, 100.0));
+    }
+
+    @Test
+    public void testOnInventoryChanged_WritesThrough() {
+        inventoryIndex.onInventoryChanged(Map.of(
+                new SockKey("Red", 50.0), -40L,
+                new SockKey("red", 65.0), 5L,
+                new SockKey("green", 10.0), 3L
+        ));
+
+        assertEquals(60, inventoryIndex.sum("red", "equal", 50.0, null, null));
+        assertEquals(5, inventoryIndex.sum("red", null, null, 60.0, 70.0));
+        assertEquals(3, inventoryIndex.sum("green", null, null, null, null));
+        assertEquals(1085, inventoryIndex.sum(null, null, null, null, null));
+    }
+
+    @Test
+    public void testVerify_ReportsDrift() {
+        assertTrue(inventoryIndex.verify().isEmpty());
+
+        inventoryIndex.onInventoryChanged(Map.of(new SockKey("blue", 50.0), 1L));
+
+        assertEquals(1, inventoryIndex.verify().size());
+    }
+
+    @Test
+    public void testVerifyAndRepair_RebuildsAfterRepeatedDrift() {
+        inventoryIndex.onInventoryChanged(Map.of(new SockKey("blue", 50.0), 1L));
+
+        inventoryIndex.verifyAndRepair();
+        assertEquals(8, inventoryIndex.sum("blue", null, null, null, null));
+
+        inventoryIndex.verifyAndRepair();
+        assertEquals(7, inventoryIndex.sum("blue", null, null, null, null));
+    }
+
+    @Test
+    public void testRebuild_CountsDeltasPublishedAfterSnapshotOnce() {
+        List<SockQuantity> rows = List.of(row("red", 20.0, 10L));
+        when(sockRepository.sumQuantityBySock()).thenAnswer(invocation -> {
+            inventoryIndex.onInventoryChanged(Map.of(new SockKey("red", 20.0), 5L));
+            return rows;
+        });
+
+        inventoryIndex.rebuild();
+
+        assertEquals(15, inventoryIndex.sum("red", null, null, null, null));
+        assertEquals(15, inventoryIndex.sum(null, null, null, null, null));
+        InOrder inOrder = inOrder(sockRepository);
+        inOrder.verify(sockRepository).startSnapshot();
+        inOrder.verify(sockRepository).sumQuantityBySock();
+    }
+
+    private SockQuantity row(String color, double cottonPart, long quantity) {
+        SockQuantity row = mock(SockQuantity.class);
+        when(row.getColor()).thenReturn(color);
+        when(row.getCottonPart()).thenReturn(cottonPart);
+        when(row.getQuantity()).thenReturn(quantity);
+        return row;
+    }
+}
@@ -0,0 +1,141 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.dto.ColorStatsDTO;
+import com.tricketteh.SocksREST.dto.CottonPartStatsDTO;
+import com.tricketteh.SocksREST.dto.InventoryStatsDTO;
+import com.tricketteh.SocksREST.repository.SockQuantity;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InventoryStatsTest {
+
+    @Mock
+    private SockRepository sockRepository;
+
+    private SocksProperties properties;
+
+    private InventoryStats inventoryStats;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        properties = new SocksProperties();
+        properties.getStats().setBucketWidth(25);
+        inventoryStats = newInventoryStats();
+        List<SockQuantity> rows = List.of(
+                row("red", 20.0, 10L),
+                row("red", 50.0, 100L),
+                row("red", 100.0, 1000L),
+                row("blue", 50.0, 7L),
+                row("blue", 80.0, 0L)
+        );
+        when(sockRepository.sumQuantityBySock()).thenReturn(rows);
+        inventoryStats.rebuild();
+    }
+
+    @Test
+    public void testStats_GroupsByColorAndBucket() {
+        InventoryStatsDTO stats = inventoryStats.stats();
+
+        assertTrue(inventoryStats.isReady());
+        assertEquals(1117, stats.getQuantity());
+        assertEquals(4, stats.getSkus());
+        assertEquals(List.of(new ColorStatsDTO("blue", 7, 1), new ColorStatsDTO("red", 1110, 3)), stats.getColors());
+        assertEquals(List.of(
+                new CottonPartStatsDTO(0, 25, 10, 1),
+                new CottonPartStatsDTO(25, 50, 0, 0),
+                new CottonPartStatsDTO(50, 75, 107, 2),
+                new CottonPartStatsDTO(75, 100, 1000, 1)
+        ), stats.getCottonParts());
+    }
+
+    @Test
+    public void testOnInventoryChanged_TracksStockedSocks() {
+        inventoryStats.onInventoryChanged(Map.of(
+                new SockKey("Blue", 50.0), -7L,
+                new SockKey("blue", 80.0), 3L,
+                new SockKey("green", 30.0), 5L
+        ));
+
+        InventoryStatsDTO stats = inventoryStats.stats();
+        assertEquals(1118, stats.getQuantity());
+        assertEquals(5, stats.getSkus());
+        assertEquals(List.of(
+                new ColorStatsDTO("blue", 3, 1),
+                new ColorStatsDTO("green", 5, 1),
+                new ColorStatsDTO("red", 1110, 3)
+        ), stats.getColors());
+        assertEquals(new CottonPartStatsDTO(25, 50, 5, 1), stats.getCottonParts().get(1));
+        assertEquals(new CottonPartStatsDTO(50, 75, 100, 1), stats.getCottonParts().get(2));
+        verify(sockRepository, times(1)).sumQuantityBySock();
+    }
+
+    @Test
+    public void testRebuild_RepairsDrift() {
+        inventoryStats.onInventoryChanged(Map.of(new SockKey("blue", 50.0), 1L));
+        assertEquals(1118, inventoryStats.stats().getQuantity());
+
+        inventoryStats.rebuild();
+
+        assertEquals(1117, inventoryStats.stats().getQuantity());
+    }
+
+    @Test
+    public void testStats_BuildsOnFirstRequest() {
+        InventoryStats notStarted = newInventoryStats();
+
+        assertFalse(notStarted.isReady());
+        assertEquals(1117, notStarted.stats().getQuantity());
+        assertTrue(notStarted.isReady());
+    }
+
+    @Test
+    public void testConstructor_RejectsInvalidBucketWidth() {
+        properties.getStats().setBucketWidth(0);
+
+        assertThrows(IllegalArgumentException.class, this::newInventoryStats);
+    }
+
+    @Test
+    public void testRebuild_CountsDeltasPublishedAfterSnapshotOnce() {
+        List<SockQuantity> rows = List.of(row("red", 20.0, 10L));
+        when(sockRepository.sumQuantityBySock()).thenAnswer(invocation -> {
+            inventoryStats.onInventoryChanged(Map.of(new SockKey("red", 20.0), 5L));
+            return rows;
+        });
+
+        inventoryStats.rebuild();
+
+        InventoryStatsDTO stats = inventoryStats.stats();
+        assertEquals(15, stats.getQuantity());
+        assertEquals(1, stats.getSkus());
+        InOrder inOrder = inOrder(sockRepository);
+        inOrder.verify(sockRepository).startSnapshot();
+        inOrder.verify(sockRepository).sumQuantityBySock();
+    }
+
+    private InventoryStats newInventoryStats() {
+        return new InventoryStats(sockRepository, properties, new InventorySnapshots(),
+                mock(PlatformTransactionManager.class));
+    }
+
+    private SockQuantity row(String color, double cottonPart, long quantity) {
+        SockQuantity row = mock(SockQuantity.class);
+        when(row.getColor()).thenReturn(color);
+        when(row.getCottonPart()).thenReturn(cottonPart);
+        when(row.getQuantity()).thenReturn(quantity);
+        return row;
+    }
+}
@@ -0,0 +1,155 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ParallelCsvParserTest {
+
+    private static final String CSV = "color,cottonPart,quantity\n" +
+            "red,50,100\n" +
+            "\"light\n\"\"blue\"\"\",60,150\n" +
+            "\"dark \\\"green\\\"\",70,5\n" +
+            " ,60,150\n" +
+            "red,50,10\n" +
+            "blue,101,5\n" +
+            "\"grey\n\n\",20,1\n" +
+            "green,70,0\n" +
+            "red,50,1\n";
+
+    @TempDir
+    Path directory;
+
+    private SocksProperties properties;
+
+    private ParallelCsvParser parser;
+
+    @BeforeEach
+    public void setup() {
+        properties = new SocksProperties();
+        properties.getBatch().setParseRangeSize(DataSize.ofBytes(1));
+        properties.getBatch().setParseThreads(4);
+        parser = new ParallelCsvParser(properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        parser.shutdown();
+    }
+
+    @Test
+    public void testSplit_KeepsQuotedLinesInOneRange() throws Exception {
+        Path file = write(CSV);
+
+        List<ParallelCsvParser.Range> ranges;
+        try (FileChannel channel = FileChannel.open(file)) {
+            ranges = ParallelCsvParser.split(channel, 1);
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), ranges.stream().map(ParallelCsvParser.Range::firstLine).toList());
+        assertEquals(0, ranges.get(0).start());
+        assertEquals(Files.size(file), ranges.get(ranges.size() - 1).end());
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1).end(), ranges.get(i).start());
+        }
+        assertEquals("\"light\n\"\"blue\"\"\",60,150\n", slice(ranges.get(2)));
+        assertEquals("\"grey\n\n\",20,1\n", slice(ranges.get(7)));
+    }
+
+    @Test
+    public void testParse_SumsQuantitiesAndOrdersErrorsByLine() throws Exception {
+        Map<SockKey, Integer> quantities = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        int[] rows = new int[1];
+
+        parser.parse(write(CSV), range -> {
+            range.quantities().forEach((key, quantity) -> quantities.merge(key, quantity, Integer::sum));
+            errors.addAll(range.errors());
+            rows[0] += range.rows();
+        });
+
+        assertEquals(List.of(
+                "String 5: Color cannot be empty.",
+                "String 7: Cotton part must be between 0 and 100.",
+                "String 9: quantity must be greater than 0."), errors);
+        assertEquals(6, rows[0]);
+        assertEquals(111, quantities.get(new SockKey("red", 50.0)));
+        assertEquals(150, quantities.get(new SockKey("light\n\"blue\"", 60.0)));
+        assertEquals(5, quantities.get(new SockKey("dark \"green\"", 70.0)));
+    }
+
+    @Test
+    public void testParse_RejectsShortRows() throws Exception {
+        List<String> errors = new ArrayList<>();
+
+        parser.parse(write("red,50\nblue,60,5\ngreen\n"), range -> errors.addAll(range.errors()));
+
+        assertEquals(List.of(
+                "String 1: Row must have color, cotton part and quantity.",
+                "String 3: Row must have color, cotton part and quantity."), errors);
+    }
+
+    @Test
+    public void testParse_RejectsRowsOverflowingSockTotal() throws Exception {
+        parser.shutdown();
+        properties.getBatch().setParseRangeSize(DataSize.ofKilobytes(64));
+        parser = new ParallelCsvParser(properties);
+        List<String> errors = new ArrayList<>();
+
+        parser.parse(write("red,50,2147483647\nred,50,1\n"), range -> errors.addAll(range.errors()));
+
+        assertEquals(List.of("String 2: total quantity of the socks exceeds 2147483647."), errors);
+    }
+
+    @Test
+    public void testLoadCsvFile_ReportsSameErrorsAsSequentialImport() throws Exception {
+        DefaultSockService sockService = new DefaultSockService(
+                mock(SockRepository.class),
+                properties,
+                new InventoryChanges(List.of(), new InventorySnapshots()),
+                mock(InventoryIndex.class),
+                mock(SocksMetrics.class),
+                mock(WriteBehindBuffer.class),
+                mock(StockLedger.class),
+                parser,
+                new TransactionTemplate(mock(PlatformTransactionManager.class))
+        );
+
+        IllegalArgumentException sequential = assertThrows(IllegalArgumentException.class, () ->
+                sockService.loadCsv(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), new ImportProgress()));
+        ImportProgress progress = new ImportProgress();
+        IllegalArgumentException parallel = assertThrows(IllegalArgumentException.class, () ->
+                sockService.loadCsvFile(write(CSV), progress));
+
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+        assertEquals(9, progress.getRowsParsed());
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.writeString(Files.createTempFile(directory, "socks-", ".csv"), content);
+    }
+
+    private String slice(ParallelCsvParser.Range range) {
+        byte[] bytes = CSV.getBytes(StandardCharsets.UTF_8);
+        return new String(bytes, (int) range.start(), (int) (range.end() - range.start()), StandardCharsets.UTF_8);
+    }
+}
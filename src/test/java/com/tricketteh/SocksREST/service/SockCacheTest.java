@@ -0,0 +1,39 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.EmbeddedPostgresTest;
+import com.tricketteh.SocksREST.dto.SocksDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SockCacheTest extends EmbeddedPostgresTest {
+
+    private static final String SET_QUANTITY = """
+            UPDATE public.socks s SET quantity = ?
+            FROM public.colors c
+            WHERE c.id = s.color_id AND c.name = ?
+            """;
+
+    @Autowired
+    private SockService sockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testQueries_CachedUntilInventoryChanges() {
+        sockService.socksIncome(new SocksDTO("teal", 40.0, 10));
+        assertEquals(10, sockService.getFilteredAndSortedSocks("teal", null, null, null, null, null).get(0).getQuantity());
+        assertEquals(10, sockService.getSocksCount("teal", null, null));
+
+        jdbcTemplate.update(SET_QUANTITY, 500, "teal");
+        assertEquals(10, sockService.getFilteredAndSortedSocks("teal", null, null, null, null, null).get(0).getQuantity());
+        assertEquals(10, sockService.getSocksCount("teal", null, null));
+
+        sockService.socksIncome(new SocksDTO("teal", 40.0, 1));
+        assertEquals(501, sockService.getFilteredAndSortedSocks("teal", null, null, null, null, null).get(0).getQuantity());
+        assertEquals(501, sockService.getSocksCount("teal", null, null));
+    }
+}
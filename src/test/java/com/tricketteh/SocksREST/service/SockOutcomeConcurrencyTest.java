@@ -0,0 +1,79 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.EmbeddedPostgresTest;
+import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.repository.SockFilter;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SockOutcomeConcurrencyTest extends EmbeddedPostgresTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private SockService sockService;
+
+    @Autowired
+    private SockRepository sockRepository;
+
+    @Test
+    public void testConcurrentOutcome_KeepsQuantityExact() throws Exception {
+        sockService.socksIncome(new SocksDTO("black", 80.0, 10_000));
+
+        AtomicInteger failures = hammer(new SocksDTO("black", 80.0, 5), 100);
+
+        assertEquals(0, failures.get());
+        assertEquals(10_000 - THREADS * 100 * 5, sockRepository.sumQuantity(new SockFilter("black", "equal", 80.0, null, null)));
+    }
+
+    @Test
+    public void testConcurrentOutcome_NeverOversells() throws Exception {
+        sockService.socksIncome(new SocksDTO("white", 20.0, 100));
+
+        AtomicInteger failures = hammer(new SocksDTO("white", 20.0, 1), 10);
+
+        assertEquals(THREADS * 10 - 100, failures.get());
+        assertEquals(0, sockRepository.sumQuantity(new SockFilter("white", "equal", 20.0, null, null)));
+    }
+
+    private AtomicInteger hammer(SocksDTO outcome, int outcomesPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < outcomesPerThread; j++) {
+                        try {
+                            sockService.socksOutcome(outcome);
+                        } catch (IllegalArgumentException ex) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class StockMovementPartitionsTest {
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    private SocksProperties properties;
+
+    private StockMovementPartitions partitions;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        properties = new SocksProperties();
+        partitions = new StockMovementPartitions(stockMovementRepository, properties,
+                Clock.fixed(Instant.parse("2026-10-18T05:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testMaintain_CreatesPartitionsAhead() {
+        partitions.maintain();
+
+        verify(stockMovementRepository).createPartition(YearMonth.of(2026, 10));
+        verify(stockMovementRepository).createPartition(YearMonth.of(2026, 11));
+        verify(stockMovementRepository).createPartition(YearMonth.of(2026, 12));
+        verify(stockMovementRepository, never()).findPartitions();
+    }
+
+    @Test
+    public void testMaintain_GoesOnWhenPartitionFails() {
+        when(stockMovementRepository.createPartition(YearMonth.of(2026, 10)))
+                .thenThrow(new DataIntegrityViolationException("partition constraint of default partition is violated"));
+
+        partitions.maintain();
+
+        verify(stockMovementRepository).createPartition(YearMonth.of(2026, 11));
+        verify(stockMovementRepository).createPartition(YearMonth.of(2026, 12));
+    }
+
+    @Test
+    public void testMaintain_DropsExpiredPartitions() {
+        properties.getLedger().setRetention(Period.ofMonths(6));
+        when(stockMovementRepository.findPartitions()).thenReturn(List.of(
+                "stock_movements_default",
+                "stock_movements_2026_03",
+                "stock_movements_2026_04",
+                "stock_movements_2026_10"
+        ));
+
+        partitions.maintain();
+
+        verify(stockMovementRepository).dropPartition(YearMonth.of(2026, 3));
+        verify(stockMovementRepository, never()).dropPartition(YearMonth.of(2026, 4));
+        verify(stockMovementRepository, never()).dropPartition(YearMonth.of(2026, 10));
+    }
+}
@@ -0,0 +1,90 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.EmbeddedPostgresTest;
+import com.tricketteh.SocksREST.dto.BulkResultDTO;
+import com.tricketteh.SocksREST.dto.SocksDTO;
+import com.tricketteh.SocksREST.entity.Sock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "socks.stripes.enabled=true",
+        "socks.stripes.count=4",
+        "socks.stripes.socks[0].color=grey",
+        "socks.stripes.socks[0].cotton-part=35"
+})
+public class StripedSockOutcomeTest extends EmbeddedPostgresTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private SockService sockService;
+
+    @Test
+    public void testStripedSock_ReadsSumSlotsAndNeverOversells() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            sockService.socksIncome(new SocksDTO("grey", 35.0, 10));
+        }
+        assertEquals(100, sockService.getSocksCount("grey", "equal", 35.0));
+        List<Sock> socks = sockService.getFilteredAndSortedSocks("grey", "equal", 35.0, null, null, null);
+        assertEquals(1, socks.size());
+        assertEquals(100, socks.get(0).getQuantity());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        try {
+                            sockService.socksOutcome(new SocksDTO("grey", 35.0, 1));
+                        } catch (IllegalArgumentException ex) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * 10 - 100, failures.get());
+        assertEquals(0, sockService.getSocksCount("grey", "equal", 35.0));
+    }
+
+    @Test
+    public void testStripedSock_BulkOutcomeTakesFromSlots() {
+        for (int i = 0; i < 4; i++) {
+            sockService.socksIncome(new SocksDTO("grey", 35.0, 5));
+        }
+        sockService.socksIncome(new SocksDTO("ivory", 35.0, 5));
+
+        BulkResultDTO result = sockService.socksOutcomeBulk(List.of(
+                new SocksDTO("grey", 35.0, 12),
+                new SocksDTO("ivory", 35.0, 3)));
+
+        assertEquals(2, result.getApplied());
+        assertEquals(8, sockService.getSocksCount("grey", "equal", 35.0));
+        assertEquals(2, sockService.getSocksCount("ivory", "equal", 35.0));
+
+        assertEquals(1, sockService.socksOutcomeBulk(List.of(new SocksDTO("grey", 35.0, 9))).getRejected());
+        assertEquals(1, sockService.socksOutcomeBulk(List.of(new SocksDTO("grey", 35.0, 8))).getApplied());
+        assertEquals(0, sockService.getSocksCount("grey", "equal", 35.0));
+    }
+}
@@ -0,0 +1,218 @@
+package com.tricketteh.SocksREST.service;
+
+import com.tricketteh.SocksREST.config.SocksProperties;
+import com.tricketteh.SocksREST.entity.Sock;
+import com.tricketteh.SocksREST.repository.ParkedDelta;
+import com.tricketteh.SocksREST.repository.SockRepository;
+import com.tricketteh.SocksREST.repository.WriteBehindSegmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WriteBehindBufferTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Mock
+    private SockRepository sockRepository;
+
+    @Mock
+    private WriteBehindSegmentRepository segmentRepository;
+
+    @Mock
+    private InventoryChanges inventoryChanges;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private SocksMetrics socksMetrics;
+
+    private SocksProperties properties;
+
+    private WriteBehindBuffer buffer;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        properties = new SocksProperties();
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushInterval(Duration.ofHours(1));
+        properties.getWriteBehind().setJournalDirectory(journalDirectory);
+        when(sockRepository.findQuantity("red", 50.0)).thenReturn(10);
+        when(sockRepository.findQuantity("blue", 60.0)).thenReturn(null);
+        buffer = new WriteBehindBuffer(sockRepository, segmentRepository, inventoryChanges, new InventorySnapshots(),
+                stockLedger, new ReservedBalances(), socksMetrics, mock(PlatformTransactionManager.class), properties);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        buffer.shutdown();
+    }
+
+    @Test
+    public void testOutcome_ReservesAgainstTableAndBuffer() throws Exception {
+        buffer.start();
+        assertEquals(15, buffer.income("red", 50.0, 5).getQuantity());
+
+        assertEquals(BulkItemStatus.APPLIED, buffer.outcome("red", 50.0, 12));
+        assertEquals(BulkItemStatus.INSUFFICIENT_STOCK, buffer.outcome("red", 50.0, 4));
+        assertEquals(BulkItemStatus.NOT_FOUND, buffer.outcome("blue", 60.0, 1));
+        verify(sockRepository, never()).upsertIncomeAll(anyCollection());
+    }
+
+    @Test
+    public void testFlush_WritesNetDeltasAsOneBatch() throws Exception {
+        buffer.start();
+        buffer.income("red", 50.0, 5);
+        buffer.outcome("red", 50.0, 3);
+        buffer.income("blue", 60.0, 7);
+
+        buffer.flush();
+
+        ArgumentCaptor<Collection<Sock>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(1)).upsertIncomeAll(batch.capture());
+        List<Sock> socks = new ArrayList<>(batch.getValue());
+        assertEquals(2, socks.size());
+        assertEquals("blue", socks.get(0).getColor());
+        assertEquals(7, socks.get(0).getQuantity());
+        assertEquals(2, socks.get(1).getQuantity());
+        verify(inventoryChanges).record("red", 50.0, 2);
+        verify(segmentRepository, times(1)).markFlushed(anyCollection());
+        try (var files = Files.list(journalDirectory)) {
+            assertEquals(1, files.count());
+        }
+
+        buffer.flush();
+        verify(sockRepository, times(1)).upsertIncomeAll(anyCollection());
+    }
+
+    @Test
+    public void testFlush_KeepsDeltasWhenDatabaseFails() throws Exception {
+        buffer.start();
+        buffer.income("red", 50.0, 5);
+        doThrow(new RuntimeException("connection refused")).doNothing().when(sockRepository).upsertIncomeAll(anyCollection());
+
+        buffer.flush();
+        buffer.income("red", 50.0, 1);
+        buffer.flush();
+
+        ArgumentCaptor<Collection<Sock>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(2)).upsertIncomeAll(batch.capture());
+        assertEquals(6, batch.getValue().iterator().next().getQuantity());
+    }
+
+    @Test
+    public void testFlush_ParksRefusedBatchAndWritesSocksOneByOne() throws Exception {
+        buffer.start();
+        buffer.income("red", 50.0, 5);
+        buffer.outcome("red", 50.0, 15);
+        buffer.income("blue", 60.0, 7);
+        doAnswer(invocation -> {
+            Collection<Sock> socks = invocation.getArgument(0);
+            if (socks.size() > 1 || socks.iterator().next().getColor().equals("red")) {
+                throw new DataIntegrityViolationException("socks_quantity_non_negative");
+            }
+            return null;
+        }).when(sockRepository).upsertIncomeAll(anyCollection());
+        when(segmentRepository.findParked()).thenReturn(List.of(
+                new ParkedDelta(1L, "blue", 60.0, 7),
+                new ParkedDelta(2L, "red", 50.0, -10)
+        ));
+
+        buffer.flush();
+
+        ArgumentCaptor<Collection<ParkedDelta>> parked = ArgumentCaptor.forClass(Collection.class);
+        verify(segmentRepository).park(parked.capture());
+        assertEquals(2, parked.getValue().size());
+        verify(segmentRepository).markFlushed(anyCollection());
+        verify(segmentRepository).unpark(1L);
+        verify(segmentRepository).fail(eq(2L), contains("socks_quantity_non_negative"));
+        verify(segmentRepository, never()).unpark(2L);
+        verify(inventoryChanges).record("blue", 60.0, 7);
+        verify(socksMetrics, times(1)).writeBehindParked();
+        // Both red deltas are out of the available stock, the table still holds 10.
+        assertEquals(BulkItemStatus.INSUFFICIENT_STOCK, buffer.outcome("red", 50.0, 11));
+        assertEquals(BulkItemStatus.APPLIED, buffer.outcome("red", 50.0, 10));
+
+        doNothing().when(sockRepository).upsertIncomeAll(anyCollection());
+        buffer.flush();
+
+        verify(segmentRepository, times(1)).park(anyCollection());
+        verify(segmentRepository, times(1)).findParked();
+    }
+
+    @Test
+    public void testFlush_EvictsIdleBalancesBeyondLimit() throws Exception {
+        properties.getWriteBehind().setMaxBalances(1);
+        buffer.start();
+        buffer.income("red", 50.0, 5);
+        buffer.outcome("blue", 60.0, 1);
+
+        buffer.flush();
+        when(sockRepository.findQuantity("red", 50.0)).thenReturn(15);
+        when(sockRepository.findQuantity("blue", 60.0)).thenReturn(null);
+
+        assertEquals(BulkItemStatus.APPLIED, buffer.outcome("red", 50.0, 15));
+        assertEquals(BulkItemStatus.NOT_FOUND, buffer.outcome("blue", 60.0, 1));
+        verify(sockRepository, atLeast(3)).findQuantity(anyString(), anyDouble());
+    }
+
+    @Test
+    public void testOutcome_RejectedAfterShutdownKeepsBalance() throws Exception {
+        buffer.start();
+        buffer.income("red", 50.0, 5);
+        buffer.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> buffer.outcome("red", 50.0, 3));
+        assertThrows(RejectedExecutionException.class, () -> buffer.income("red", 50.0, 3));
+    }
+
+    @Test
+    public void testStart_ReplaysUnflushedJournal() throws Exception {
+        WriteBehindJournal journal = new WriteBehindJournal(journalDirectory, false);
+        String unflushed;
+        try (WriteBehindJournal.Segment segment = journal.open()) {
+            unflushed = segment.id();
+            segment.append(new SockKey("red", 50.0), 5);
+            segment.append(new SockKey("red", 50.0), 4);
+        }
+        Files.write(journalDirectory.resolve(unflushed + ".journal"), new byte[]{0, 0, 0, 40, 1, 2},
+                StandardOpenOption.APPEND);
+        String flushed;
+        try (WriteBehindJournal.Segment segment = journal.open()) {
+            flushed = segment.id();
+            segment.append(new SockKey("red", 50.0), 100);
+        }
+        when(segmentRepository.findFlushed(anyCollection())).thenReturn(Set.of(flushed));
+
+        buffer.start();
+
+        ArgumentCaptor<Collection<Sock>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(sockRepository, times(1)).upsertIncomeAll(batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals(9, batch.getValue().iterator().next().getQuantity());
+        verify(segmentRepository).markFlushed(List.of(unflushed));
+        assertEquals(List.of(), journal.segments().stream().filter(id -> id.equals(unflushed) || id.equals(flushed)).toList());
+    }
+}